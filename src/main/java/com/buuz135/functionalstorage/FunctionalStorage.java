@@ -6,13 +6,16 @@ import com.buuz135.functionalstorage.client.*;
 import com.buuz135.functionalstorage.client.loader.FramedModel;
 import com.buuz135.functionalstorage.data.*;
 import com.buuz135.functionalstorage.inventory.BigInventoryHandler;
+import com.buuz135.functionalstorage.inventory.IAggregatedItemHandler;
 import com.buuz135.functionalstorage.inventory.item.CompactingStackItemHandler;
 import com.buuz135.functionalstorage.inventory.item.DrawerStackItemHandler;
 import com.buuz135.functionalstorage.item.ConfigurationToolItem;
 import com.buuz135.functionalstorage.item.LinkingToolItem;
 import com.buuz135.functionalstorage.item.StorageUpgradeItem;
 import com.buuz135.functionalstorage.item.UpgradeItem;
+import com.buuz135.functionalstorage.network.DrawerCountSyncMessage;
 import com.buuz135.functionalstorage.network.EnderDrawerSyncMessage;
+import com.buuz135.functionalstorage.network.EnderDrawerSyncService;
 import com.buuz135.functionalstorage.recipe.CustomCompactingRecipe;
 import com.buuz135.functionalstorage.recipe.DrawerlessWoodIngredient;
 import com.buuz135.functionalstorage.recipe.FramedDrawerRecipe;
@@ -45,6 +48,7 @@ import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.Items;
 import net.minecraft.world.item.crafting.RecipeSerializer;
 import net.minecraft.world.item.crafting.RecipeType;
+import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.entity.BlockEntityType;
@@ -58,11 +62,21 @@ import net.minecraftforge.client.model.generators.ItemModelProvider;
 import net.minecraftforge.client.model.generators.ModelFile;
 import net.minecraftforge.common.ForgeMod;
 import net.minecraftforge.common.Tags;
+import net.minecraftforge.common.capabilities.Capability;
+import net.minecraftforge.common.capabilities.CapabilityManager;
+import net.minecraftforge.common.capabilities.CapabilityToken;
 import net.minecraftforge.common.capabilities.ForgeCapabilities;
+import net.minecraftforge.common.capabilities.RegisterCapabilitiesEvent;
 import net.minecraftforge.common.crafting.CraftingHelper;
 import net.minecraftforge.common.util.NonNullLazy;
 import net.minecraftforge.data.event.GatherDataEvent;
+import net.minecraftforge.event.OnDatapackSyncEvent;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
 import net.minecraftforge.event.level.BlockEvent;
+import net.minecraftforge.event.level.LevelEvent;
+import net.minecraftforge.event.server.ServerStartedEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
 import net.minecraftforge.fml.DistExecutor;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.event.lifecycle.FMLClientSetupEvent;
@@ -90,6 +104,7 @@ public class FunctionalStorage extends ModuleController {
 
     static {
         NETWORK.registerMessage(EnderDrawerSyncMessage.class);
+        NETWORK.registerMessage(DrawerCountSyncMessage.class);
     }
 
     // Directly reference a log4j logger.
@@ -126,6 +141,7 @@ public class FunctionalStorage extends ModuleController {
     public static TitaniumTab TAB = new TitaniumTab(new ResourceLocation(MOD_ID, "main"));
     public static RegistryObject<RecipeSerializer<?>> CUSTOM_COMPACTING_RECIPE_SERIALIZER;
     public static RegistryObject<RecipeType<?>> CUSTOM_COMPACTING_RECIPE_TYPE;
+    public static final Capability<IAggregatedItemHandler> AGGREGATED_ITEM_HANDLER = CapabilityManager.get(new CapabilityToken<>() {});
 
 
     public FunctionalStorage() {
@@ -170,6 +186,33 @@ public class FunctionalStorage extends ModuleController {
                 }
             }
         }).subscribe();
+        EventManager.forge(TickEvent.LevelTickEvent.class).filter(levelTickEvent -> levelTickEvent.phase == TickEvent.Phase.END && !levelTickEvent.level.isClientSide()).process(levelTickEvent -> {
+            UpgradeScheduler.tick(levelTickEvent.level);
+        }).subscribe();
+        EventManager.forge(TickEvent.ServerTickEvent.class).filter(serverTickEvent -> serverTickEvent.phase == TickEvent.Phase.END).process(serverTickEvent -> {
+            EnderDrawerSyncService.tick(serverTickEvent.getServer());
+        }).subscribe();
+        EventManager.forge(PlayerEvent.PlayerLoggedOutEvent.class).process(loggedOutEvent -> {
+            EnderDrawerSyncService.onPlayerLoggedOut(loggedOutEvent.getEntity().getUUID());
+        }).subscribe();
+        EventManager.forge(LevelEvent.Unload.class).process(unload -> {
+            if (unload.getLevel() instanceof Level level) UpgradeScheduler.clear(level);
+        }).subscribe();
+        EventManager.forge(OnDatapackSyncEvent.class).filter(onDatapackSyncEvent -> onDatapackSyncEvent.getPlayer() == null).process(onDatapackSyncEvent -> {
+            CompactingUtil.clearCache();
+            CompactingRecipeIndex.build(onDatapackSyncEvent.getPlayerList().getServer().overworld());
+        }).subscribe();
+        EventManager.forge(ServerStartedEvent.class).process(serverStartedEvent -> {
+            CompactingRecipeIndex.build(serverStartedEvent.getServer().overworld());
+        }).subscribe();
+        EventManager.forge(ServerStoppedEvent.class).process(serverStoppedEvent -> {
+            CompactingUtil.clearCache();
+            CompactingRecipeIndex.clear();
+            EnderDrawerSyncService.clear();
+        }).subscribe();
+        EventManager.mod(RegisterCapabilitiesEvent.class).process(registerCapabilitiesEvent -> {
+            registerCapabilitiesEvent.register(IAggregatedItemHandler.class);
+        }).subscribe();
         EventManager.mod(FMLCommonSetupEvent.class).process(fmlCommonSetupEvent -> {
             CraftingHelper.register(DrawerlessWoodIngredient.NAME, DrawerlessWoodIngredient.SERIALIZER);
         }).subscribe();
@@ -368,7 +411,7 @@ public class FunctionalStorage extends ModuleController {
                 if (iItemHandler instanceof DrawerStackItemHandler) {
                     int i = 0;
                     for (BigInventoryHandler.BigStack storedStack : ((DrawerStackItemHandler) iItemHandler).getStoredStacks()) {
-                        TooltipUtil.renderItemAdvanced(itemTooltipEvent.getGraphics(), storedStack.getStack(), itemTooltipEvent.getX() + 20 + 26 * i, itemTooltipEvent.getY() + 11, 512, NumberUtils.getFormatedBigNumber(storedStack.getAmount()) + "/" + NumberUtils.getFormatedBigNumber(iItemHandler.getSlotLimit(i)));
+                        TooltipUtil.renderItemAdvanced(itemTooltipEvent.getGraphics(), storedStack.getStack(), itemTooltipEvent.getX() + 20 + 26 * i, itemTooltipEvent.getY() + 11, 512, NumberUtils.getFormatedBigNumber(storedStack.getLongAmount()) + "/" + NumberUtils.getFormatedBigNumber(((DrawerStackItemHandler) iItemHandler).getSlotCapacity(i)));
                         ++i;
                     }
                 }
@@ -378,13 +421,17 @@ public class FunctionalStorage extends ModuleController {
                     for (int i = compactingStackItemHandler.getSlots(); i >= 0; i--) {
                         var stack = compactingStackItemHandler.getStackInSlot(i);
                         if (!stack.isEmpty()) {
-                            TooltipUtil.renderItemAdvanced(itemTooltipEvent.getGraphics(), stack, itemTooltipEvent.getX() + 20 + 32 * pos, itemTooltipEvent.getY() + 11, 512, NumberUtils.getFormatedBigNumber(stack.getCount()) + "/" + NumberUtils.getFormatedBigNumber(iItemHandler.getSlotLimit(i)));
+                            long amount = compactingStackItemHandler.isCreative() ? stack.getCount() : compactingStackItemHandler.getAmount() / compactingStackItemHandler.getResultList().get(i).getNeeded();
+                            TooltipUtil.renderItemAdvanced(itemTooltipEvent.getGraphics(), stack, itemTooltipEvent.getX() + 20 + 32 * pos, itemTooltipEvent.getY() + 11, 512, NumberUtils.getFormatedBigNumber(amount) + "/" + NumberUtils.getFormatedBigNumber(compactingStackItemHandler.getSlotCapacity(i)));
                             ++pos;
                         }
                     }
                 }
             });
         }).subscribe();
+        EventManager.forge(RenderLevelStageEvent.class).filter(renderLevelStageEvent -> renderLevelStageEvent.getStage() == RenderLevelStageEvent.Stage.AFTER_SKY).process(renderLevelStageEvent -> {
+            DrawerRenderDetail.setFrustum(renderLevelStageEvent.getFrustum());
+        }).subscribe();
         EventManager.mod(ModelEvent.RegisterGeometryLoaders.class).process(modelRegistryEvent -> {
             modelRegistryEvent.register("framedblock", FramedModel.Loader.INSTANCE);
         }).subscribe();
@@ -39,6 +39,7 @@ import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.TooltipFlag;
 import net.minecraft.world.level.BlockGetter;
 import net.minecraft.world.level.Level;
+import net.minecraft.world.level.LevelReader;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.RenderShape;
 import net.minecraft.world.level.block.entity.BlockEntity;
@@ -348,6 +349,18 @@ public class DrawerBlock extends RotatableBlock<DrawerTile> {
         super.onRemove(state, worldIn, pos, newState, isMoving);
     }
 
+    @Override
+    public void neighborChanged(BlockState state, Level level, BlockPos pos, Block block, BlockPos fromPos, boolean isMoving) {
+        super.neighborChanged(state, level, pos, block, fromPos, isMoving);
+        TileUtil.getTileEntity(level, pos, ControllableDrawerTile.class).ifPresent(tile -> tile.onNeighborChanged(fromPos));
+    }
+
+    @Override
+    public void onNeighborChange(BlockState state, LevelReader level, BlockPos pos, BlockPos neighbor) {
+        super.onNeighborChange(state, level, pos, neighbor);
+        TileUtil.getTileEntity(level, pos, ControllableDrawerTile.class).ifPresent(tile -> tile.onNeighborContentsChanged(neighbor));
+    }
+
     @Override
     public void appendHoverText(ItemStack p_49816_, @Nullable BlockGetter p_49817_, List<net.minecraft.network.chat.Component> tooltip, TooltipFlag p_49819_) {
         super.appendHoverText(p_49816_, p_49817_, tooltip, p_49819_);
@@ -378,7 +391,7 @@ public class DrawerBlock extends RotatableBlock<DrawerTile> {
                 if (stack.getItem().equals(FunctionalStorage.REDSTONE_UPGRADE.get())){
                     int redstoneSlot = stack.getOrCreateTag().getInt("Slot");
                     if (redstoneSlot < tile.getStorage().getSlots()) {
-                        int amount = tile.getStorage().getStackInSlot(redstoneSlot).getCount() * 14 / tile.getStorage().getSlotLimit(redstoneSlot);
+                        int amount = (int) (tile.getStoredAmount(redstoneSlot) * 14 / tile.getStoredCapacity(redstoneSlot));
                         return amount + (amount > 0 ? 1 : 0);
                     }
                 }
@@ -35,6 +35,7 @@ import net.minecraft.world.item.Items;
 import net.minecraft.world.item.TooltipFlag;
 import net.minecraft.world.level.BlockGetter;
 import net.minecraft.world.level.Level;
+import net.minecraft.world.level.LevelReader;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.entity.BlockEntityType;
@@ -269,6 +270,18 @@ public class FluidDrawerBlock extends RotatableBlock<FluidDrawerTile> {
         super.onRemove(state, worldIn, pos, newState, isMoving);
     }
 
+    @Override
+    public void neighborChanged(BlockState state, Level level, BlockPos pos, Block block, BlockPos fromPos, boolean isMoving) {
+        super.neighborChanged(state, level, pos, block, fromPos, isMoving);
+        TileUtil.getTileEntity(level, pos, ControllableDrawerTile.class).ifPresent(tile -> tile.onNeighborChanged(fromPos));
+    }
+
+    @Override
+    public void onNeighborChange(BlockState state, LevelReader level, BlockPos pos, BlockPos neighbor) {
+        super.onNeighborChange(state, level, pos, neighbor);
+        TileUtil.getTileEntity(level, pos, ControllableDrawerTile.class).ifPresent(tile -> tile.onNeighborContentsChanged(neighbor));
+    }
+
     @Override
     public void appendHoverText(ItemStack itemStack, @Nullable BlockGetter p_49817_, List<Component> tooltip, TooltipFlag p_49819_) {
         super.appendHoverText(itemStack, p_49817_, tooltip, p_49819_);
@@ -28,6 +28,7 @@ import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.TooltipFlag;
 import net.minecraft.world.level.BlockGetter;
 import net.minecraft.world.level.Level;
+import net.minecraft.world.level.LevelReader;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.entity.BlockEntity;
@@ -225,6 +226,18 @@ public class SimpleCompactingDrawerBlock extends RotatableBlock<SimpleCompacting
         super.onRemove(state, worldIn, pos, newState, isMoving);
     }
 
+    @Override
+    public void neighborChanged(BlockState state, Level level, BlockPos pos, Block block, BlockPos fromPos, boolean isMoving) {
+        super.neighborChanged(state, level, pos, block, fromPos, isMoving);
+        TileUtil.getTileEntity(level, pos, ControllableDrawerTile.class).ifPresent(tile -> tile.onNeighborChanged(fromPos));
+    }
+
+    @Override
+    public void onNeighborChange(BlockState state, LevelReader level, BlockPos pos, BlockPos neighbor) {
+        super.onNeighborChange(state, level, pos, neighbor);
+        TileUtil.getTileEntity(level, pos, ControllableDrawerTile.class).ifPresent(tile -> tile.onNeighborContentsChanged(neighbor));
+    }
+
 
     @Override
     public boolean canConnectRedstone(BlockState state, BlockGetter level, BlockPos pos, @Nullable Direction direction) {
@@ -245,7 +258,7 @@ public class SimpleCompactingDrawerBlock extends RotatableBlock<SimpleCompacting
                 if (stack.getItem().equals(FunctionalStorage.REDSTONE_UPGRADE.get())) {
                     int redstoneSlot = stack.getOrCreateTag().getInt("Slot");
                     if (redstoneSlot < tile.getStorage().getSlots()) {
-                        int amount = tile.getStorage().getStackInSlot(redstoneSlot).getCount() * 14 / tile.getStorage().getSlotLimit(redstoneSlot);
+                        int amount = (int) (tile.getStoredAmount(redstoneSlot) * 14 / tile.getStoredCapacity(redstoneSlot));
                         return amount + (amount > 0 ? 1 : 0);
                     }
                 }
@@ -17,6 +17,18 @@ public class FunctionalStorageConfig {
     @ConfigVal.InRangeInt(min = 1)
     public static int UPGRADE_TICK = 4;
 
+    @ConfigVal(comment = "How much time (in microseconds) each dimension can spend running drawer upgrades every tick, drawers over budget wait for the next tick")
+    @ConfigVal.InRangeInt(min = 1)
+    public static int UPGRADE_TICK_BUDGET = 2000;
+
+    @ConfigVal(comment = "Max amount of upgrade cycles a drawer will skip while its pulling, pushing and collector upgrades have nothing to do")
+    @ConfigVal.InRangeInt(min = 0)
+    public static int UPGRADE_IDLE_BACKOFF = 15;
+
+    @ConfigVal(comment = "Min amount of ticks between two syncs of the contents of a drawer to the clients, changes in between are sent together")
+    @ConfigVal.InRangeInt(min = 1)
+    public static int DRAWER_SYNC_INTERVAL = 1;
+
     @ConfigVal(comment = "How many items the pulling upgrade will try to pull")
     public static int UPGRADE_PULL_ITEMS = 4;
 
@@ -44,6 +56,9 @@ public class FunctionalStorageConfig {
     @ConfigVal(comment = "How much the storage of an item drawer with a Netherite Upgrade should be multiplied by")
     public static int NETHERITE_MULTIPLIER = 32;
 
+    @ConfigVal(comment = "Allows item and compacting drawers to store more than 2147483647 items per slot, other mods still see at most that amount")
+    public static boolean LONG_CAPACITY = false;
+
     @ConfigVal(comment = "How much should the fluid storage be divided by for any given Storage Upgrade")
     @ConfigVal.InRangeInt(min = 1)
     public static int FLUID_DIVISOR = 2;
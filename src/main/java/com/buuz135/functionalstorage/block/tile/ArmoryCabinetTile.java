@@ -72,12 +72,7 @@ public class ArmoryCabinetTile extends ActiveTile<ArmoryCabinetTile> {
     }
 
     public boolean isEverythingEmpty() {
-        for (int i = 0; i < getStorage().getSlots(); i++) {
-            if (!getStorage().getStackInSlot(i).isEmpty()) {
-                return false;
-            }
-        }
-        return true;
+        return handler.isEmpty();
     }
 
     @NotNull
@@ -40,7 +40,7 @@ public class CompactingDrawerTile extends ItemControllableDrawerTile<CompactingD
         this.handler = new CompactingInventoryHandler(3) {
             @Override
             public void onChange() {
-                CompactingDrawerTile.this.markForUpdate();
+                CompactingDrawerTile.this.markContentsChanged();
             }
 
             @Override
@@ -162,4 +162,19 @@ public class CompactingDrawerTile extends ItemControllableDrawerTile<CompactingD
         return handler;
     }
 
+    @Override
+    protected int getSyncedCountSlots() {
+        return 1;
+    }
+
+    @Override
+    protected long getSyncedCount(int slot) {
+        return handler.getAmount();
+    }
+
+    @Override
+    public void setSyncedCount(int slot, long count) {
+        handler.setAmount(count);
+    }
+
 }
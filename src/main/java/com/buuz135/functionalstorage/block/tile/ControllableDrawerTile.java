@@ -2,10 +2,12 @@ package com.buuz135.functionalstorage.block.tile;
 
 import com.buuz135.functionalstorage.FunctionalStorage;
 import com.buuz135.functionalstorage.block.DrawerBlock;
+import com.buuz135.functionalstorage.block.config.FunctionalStorageConfig;
 import com.buuz135.functionalstorage.item.ConfigurationToolItem;
 import com.buuz135.functionalstorage.item.LinkingToolItem;
 import com.buuz135.functionalstorage.item.StorageUpgradeItem;
 import com.buuz135.functionalstorage.item.UpgradeItem;
+import com.buuz135.functionalstorage.util.UpgradeScheduler;
 import com.hrznstudio.titanium.annotation.Save;
 import com.hrznstudio.titanium.block.BasicTileBlock;
 import com.hrznstudio.titanium.block.tile.ActiveTile;
@@ -23,18 +25,30 @@ import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.entity.BlockEntityType;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.common.capabilities.Capability;
 import net.minecraftforge.common.util.INBTSerializable;
+import net.minecraftforge.common.util.LazyOptional;
 import net.minecraftforge.items.ItemHandlerHelper;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 public abstract class ControllableDrawerTile<T extends ControllableDrawerTile<T>> extends ActiveTile<T> {
 
+    private static final int VERTICAL_UPGRADE_BACKOFF = 3;
+
     private boolean needsUpgradeCache = true;
+    private boolean unloaded = false;
 
     @Save
     private BlockPos controllerPos;
@@ -52,6 +66,13 @@ public abstract class ControllableDrawerTile<T extends ControllableDrawerTile<T>
     private boolean isVoid = false;
     @Save
     private int mult = 1;
+    private boolean hasWorkingUpgrades = false;
+    private int idleUpgradeCycles = 0;
+    private int skippedUpgradeCycles = 0;
+    private boolean contentsDirty = false;
+    private int contentsSyncCooldown = 0;
+    private final Map<Capability<?>, LazyOptional<?>[]> neighborCapabilities = new IdentityHashMap<>();
+    private final Set<LazyOptional<?>> listenedCapabilities = Collections.newSetFromMap(new WeakHashMap<>());
 
     public ControllableDrawerTile(BasicTileBlock<T> base, BlockEntityType<T> entityType, BlockPos pos, BlockState state) {
         super(base, entityType, pos, state);
@@ -66,10 +87,8 @@ public abstract class ControllableDrawerTile<T extends ControllableDrawerTile<T>
                             .setSlotLimit(1)
                             .setOnSlotChanged((itemStack, integer) -> {
                                 needsUpgradeCache = true;
-                                if (controllerPos != null) {
-                                    if(this.level.getBlockEntity(controllerPos) instanceof StorageControllerTile controllerTile)
-                                        controllerTile.getConnectedDrawers().rebuild();
-                                }
+                                wakeUpgrades();
+                                getControllerInstance().ifPresent(controllerTile -> controllerTile.getConnectedDrawers().updateDrawer(getBlockPos().asLong()));
                             })
                     )
             );
@@ -122,12 +141,190 @@ public abstract class ControllableDrawerTile<T extends ControllableDrawerTile<T>
                 }
             }
         }
+        if (this.contentsSyncCooldown > 0) this.contentsSyncCooldown--;
+        if (this.contentsDirty && this.contentsSyncCooldown == 0) {
+            this.contentsDirty = false;
+            this.contentsSyncCooldown = FunctionalStorageConfig.DRAWER_SYNC_INTERVAL;
+            syncContents();
+        }
+        if (hasWorkingUpgrades() && (level.getGameTime() + getUpgradePhase()) % FunctionalStorageConfig.UPGRADE_TICK == 0) {
+            if (this.skippedUpgradeCycles < getUpgradeBackoff()) {
+                this.skippedUpgradeCycles++;
+            } else {
+                this.skippedUpgradeCycles = 0;
+                UpgradeScheduler.schedule(this);
+            }
+        }
+    }
+
+    /**
+     * Runs the upgrades and backs off exponentially, up to {@link FunctionalStorageConfig#UPGRADE_IDLE_BACKOFF} cycles,
+     * while they keep finding nothing to do.
+     */
+    public void runUpgrades() {
+        if (tickUpgrades()) {
+            this.idleUpgradeCycles = 0;
+        } else {
+            this.idleUpgradeCycles = Math.min(this.idleUpgradeCycles + 1, 16);
+        }
+    }
+
+    /**
+     * Runs the pulling, pushing and collector upgrades of this drawer, called by the {@link UpgradeScheduler} every
+     * {@link FunctionalStorageConfig#UPGRADE_TICK} ticks.
+     *
+     * @return true if any upgrade moved something
+     */
+    protected boolean tickUpgrades() {
+        return false;
+    }
+
+    /**
+     * Makes the upgrades work again on their next cycle, for when the contents or the neighbours of the drawer change.
+     */
+    public void wakeUpgrades() {
+        this.idleUpgradeCycles = 0;
+        this.skippedUpgradeCycles = 0;
+    }
+
+    /**
+     * Called when a neighbouring block changes, drops the cached capabilities of that side.
+     */
+    public void onNeighborChanged(BlockPos neighbor) {
+        Direction direction = Direction.fromDelta(neighbor.getX() - getBlockPos().getX(), neighbor.getY() - getBlockPos().getY(), neighbor.getZ() - getBlockPos().getZ());
+        if (direction != null) {
+            for (LazyOptional<?>[] sides : this.neighborCapabilities.values()) {
+                sides[direction.get3DDataValue()] = null;
+            }
+        }
+        wakeUpgrades();
+    }
+
+    /**
+     * Called when the contents of a neighbouring block entity change. Block entities only notify their horizontal
+     * neighbours, so upgrades facing up or down are never woken by this and cap their backoff instead.
+     */
+    public void onNeighborContentsChanged(BlockPos neighbor) {
+        wakeUpgrades();
+    }
+
+    /**
+     * Capability of the block entity next to this drawer, cached until it gets invalidated or the neighbour changes so
+     * the upgrades don't have to look it up every cycle.
+     */
+    protected <C> LazyOptional<C> getNeighborCapability(Capability<C> capability, Direction direction) {
+        LazyOptional<?>[] sides = this.neighborCapabilities.computeIfAbsent(capability, cap -> new LazyOptional<?>[Direction.values().length]);
+        int index = direction.get3DDataValue();
+        LazyOptional<?> cached = sides[index];
+        if (cached != null) return cached.cast();
+        BlockPos neighbor = getBlockPos().relative(direction);
+        if (!this.level.isLoaded(neighbor)) return LazyOptional.empty();
+        BlockEntity blockEntity = this.level.getBlockEntity(neighbor);
+        LazyOptional<C> optional = blockEntity == null ? LazyOptional.empty() : blockEntity.getCapability(capability, direction.getOpposite());
+        sides[index] = optional;
+        // the side is looked up again after every neighbour update, but the optional is often the same one
+        if (optional.isPresent() && this.listenedCapabilities.add(optional)) {
+            optional.addListener(invalidated -> {
+                if (sides[index] == invalidated) sides[index] = null;
+            });
+        }
+        return optional;
+    }
+
+    private int getUpgradeBackoff() {
+        if (this.idleUpgradeCycles == 0) return 0;
+        int backoff = Math.min((1 << this.idleUpgradeCycles) - 1, FunctionalStorageConfig.UPGRADE_IDLE_BACKOFF);
+        if (backoff > VERTICAL_UPGRADE_BACKOFF && hasVerticalTransferUpgrade()) return VERTICAL_UPGRADE_BACKOFF;
+        return backoff;
+    }
+
+    /**
+     * If a pulling or pushing upgrade faces up or down, where {@link #onNeighborContentsChanged(BlockPos)} never wakes it.
+     */
+    private boolean hasVerticalTransferUpgrade() {
+        if (getUtilitySlotAmount() <= 0) return false;
+        for (int i = 0; i < this.utilityUpgrades.getSlots(); i++) {
+            ItemStack stack = this.utilityUpgrades.getStackInSlot(i);
+            if ((stack.is(FunctionalStorage.PULLING_UPGRADE.get()) || stack.is(FunctionalStorage.PUSHING_UPGRADE.get())) && UpgradeItem.getDirection(stack).getAxis() == Direction.Axis.Y) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Offsets the upgrade tick of neighbouring drawers so they don't all work on the same tick.
+     */
+    private int getUpgradePhase() {
+        return Math.floorMod(getBlockPos().getX() + getBlockPos().getY() + getBlockPos().getZ(), FunctionalStorageConfig.UPGRADE_TICK);
+    }
+
+    @Override
+    public void markForUpdate() {
+        super.markForUpdate();
+        this.contentsDirty = false;
+        wakeUpgrades();
+    }
+
+    /**
+     * Marks the stored contents as changed without syncing them right away, the server sends them on its next tick and
+     * at most once every {@link FunctionalStorageConfig#DRAWER_SYNC_INTERVAL} ticks no matter how many inserts and
+     * extracts happened in between.
+     */
+    public void markContentsChanged() {
+        if (this.level == null) return;
+        if (isClient()) {
+            syncContents();
+            return;
+        }
+        setChanged();
+        wakeUpgrades();
+        this.contentsDirty = true;
+    }
+
+    /**
+     * Sends the stored contents to the clients.
+     */
+    protected void syncContents() {
+        markForUpdate();
+    }
+
+    @Override
+    public void onLoad() {
+        super.onLoad();
+        this.unloaded = false;
+        if (isServer()) {
+            getControllerInstance().ifPresent(controllerTile -> controllerTile.onDrawerLoaded(getBlockPos()));
+        }
+    }
+
+    @Override
+    public void onChunkUnloaded() {
+        super.onChunkUnloaded();
+        this.unloaded = true;
+        if (isServer()) {
+            getControllerInstance().ifPresent(controllerTile -> controllerTile.onDrawerUnloaded(getBlockPos()));
+        }
+    }
+
+    @Override
+    public void setRemoved() {
+        super.setRemoved();
+        if (!this.unloaded && this.level != null && isServer()) {
+            getControllerInstance().ifPresent(controllerTile -> controllerTile.onDrawerRemoved(getBlockPos()));
+        }
     }
 
     public BlockPos getControllerPos() {
         return controllerPos;
     }
 
+    protected Optional<StorageControllerTile> getControllerInstance() {
+        if (getControllerPos() == null) return Optional.empty();
+        if (level == null || !level.isLoaded(getControllerPos())) return Optional.empty();
+        return TileUtil.getTileEntity(this.level, getControllerPos(), StorageControllerTile.class);
+    }
+
     public void setControllerPos(BlockPos controllerPos) {
         if (this.controllerPos != null) {
             TileUtil.getTileEntity(getLevel(), this.controllerPos, StorageControllerTile.class).ifPresent(drawerControllerTile -> {
@@ -157,6 +354,11 @@ public abstract class ControllableDrawerTile<T extends ControllableDrawerTile<T>
         return isCreative;
     }
 
+    public boolean hasWorkingUpgrades() {
+        maybeCacheUpgrades();
+        return hasWorkingUpgrades;
+    }
+
     public double getStorageDiv() {
         return 1;
     }
@@ -246,11 +448,16 @@ public abstract class ControllableDrawerTile<T extends ControllableDrawerTile<T>
                 }
             }
             isVoid = false;
+            hasWorkingUpgrades = false;
             if (getUtilitySlotAmount() > 0){
                 for (int i = 0; i < utilityUpgrades.getSlots(); i++) {
-                    if (utilityUpgrades.getStackInSlot(i).getItem().equals(FunctionalStorage.VOID_UPGRADE.get())) {
+                    Item upgrade = utilityUpgrades.getStackInSlot(i).getItem();
+                    if (upgrade.equals(FunctionalStorage.VOID_UPGRADE.get())) {
                         isVoid = true;
                     }
+                    if (upgrade.equals(FunctionalStorage.PULLING_UPGRADE.get()) || upgrade.equals(FunctionalStorage.PUSHING_UPGRADE.get()) || upgrade.equals(FunctionalStorage.COLLECTOR_UPGRADE.get())) {
+                        hasWorkingUpgrades = true;
+                    }
                 }
             }
             needsUpgradeCache = false;
@@ -41,7 +41,7 @@ public class DrawerTile extends ItemControllableDrawerTile<DrawerTile> {
         this.handler = new BigInventoryHandler(type) {
             @Override
             public void onChange() {
-                DrawerTile.this.markForUpdate();
+                DrawerTile.this.markContentsChanged();
             }
 
             @Override
@@ -103,6 +103,7 @@ public class DrawerTile extends ItemControllableDrawerTile<DrawerTile> {
             BigInventoryHandler.BigStack bigStack = getHandler().getStoredStacks().get(slot);
             if (bigStack.getStack().isEmpty()){
                 bigStack.setStack(playerIn.getItemInHand(hand));
+                getHandler().notifyIdentityChanged(slot);
             }
         }
         return super.onSlotActivated(playerIn, hand, facing, hitX, hitY, hitZ, slot);
@@ -138,6 +139,21 @@ public class DrawerTile extends ItemControllableDrawerTile<DrawerTile> {
         return type.getSlotAmount();
     }
 
+    @Override
+    protected int getSyncedCountSlots() {
+        return type.getSlots();
+    }
+
+    @Override
+    protected long getSyncedCount(int slot) {
+        return handler.getStoredStacks().get(slot).getLongAmount();
+    }
+
+    @Override
+    public void setSyncedCount(int slot, long count) {
+        if (slot < type.getSlots()) handler.getStoredStacks().get(slot).setAmount(count);
+    }
+
     public BigInventoryHandler getHandler() {
         return handler;
     }
@@ -3,7 +3,7 @@ package com.buuz135.functionalstorage.block.tile;
 import com.buuz135.functionalstorage.FunctionalStorage;
 import com.buuz135.functionalstorage.client.gui.DrawerInfoGuiAddon;
 import com.buuz135.functionalstorage.inventory.EnderInventoryHandler;
-import com.buuz135.functionalstorage.network.EnderDrawerSyncMessage;
+import com.buuz135.functionalstorage.network.EnderDrawerSyncService;
 import com.buuz135.functionalstorage.world.EnderSavedData;
 import com.hrznstudio.titanium.annotation.Save;
 import com.hrznstudio.titanium.block.BasicTileBlock;
@@ -12,9 +12,6 @@ import net.minecraft.core.Direction;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerLevel;
-import net.minecraft.world.InteractionHand;
-import net.minecraft.world.InteractionResult;
-import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.entity.BlockEntityType;
@@ -75,9 +72,6 @@ public class EnderDrawerTile extends ItemControllableDrawerTile<EnderDrawerTile>
     @Override
     public void serverTick(Level level, BlockPos pos, BlockState state, EnderDrawerTile blockEntity) {
         super.serverTick(level, pos, state, blockEntity);
-        if (level.getGameTime() % 20 == 0){
-            FunctionalStorage.NETWORK.sendToNearby(level, pos, 32, new EnderDrawerSyncMessage(frequency, ((EnderInventoryHandler)getStorage())));
-        }
         if (level.getGameTime() % 10 == 0) {
             EnderInventoryHandler handler = EnderSavedData.getInstance(this.level).getFrequency(this.frequency);
             if (handler.isLocked() != isLocked()) {
@@ -96,20 +90,22 @@ public class EnderDrawerTile extends ItemControllableDrawerTile<EnderDrawerTile>
         }
     }
 
-    public InteractionResult onSlotActivated(Player playerIn, InteractionHand hand, Direction facing, double hitX, double hitY, double hitZ, int slot) {
-        InteractionResult result = super.onSlotActivated(playerIn, hand, facing, hitX, hitY, hitZ, slot);
-        if (slot != -1){
-            FunctionalStorage.NETWORK.sendToNearby(level, this.getBlockPos(), 32, new EnderDrawerSyncMessage(frequency, ((EnderInventoryHandler)getStorage())));
-        }
-        return result;
+    @Override
+    public void onLoad() {
+        super.onLoad();
+        if (isServer()) EnderDrawerSyncService.addDrawer(this);
     }
 
     @Override
-    public void onClicked(Player playerIn, int slot) {
-        super.onClicked(playerIn, slot);
-        if (slot != -1){
-            FunctionalStorage.NETWORK.sendToNearby(level, this.getBlockPos(), 32, new EnderDrawerSyncMessage(frequency, ((EnderInventoryHandler)getStorage())));
-        }
+    public void onChunkUnloaded() {
+        super.onChunkUnloaded();
+        EnderDrawerSyncService.removeDrawer(this);
+    }
+
+    @Override
+    public void setRemoved() {
+        super.setRemoved();
+        EnderDrawerSyncService.removeDrawer(this);
     }
 
     @Override
@@ -156,7 +152,7 @@ public class EnderDrawerTile extends ItemControllableDrawerTile<EnderDrawerTile>
     public boolean isEverythingEmpty() {
         EnderInventoryHandler inventoryHandler = EnderSavedData.getInstance(this.level).getFrequency(this.frequency);
         for (int i = 0; i < inventoryHandler.getSlots(); i++) {
-            if (!inventoryHandler.getStackInSlot(i).isEmpty()) {
+            if (inventoryHandler.getAmount(i) > 0) {
                 return false;
             }
         }
@@ -183,6 +179,7 @@ public class EnderDrawerTile extends ItemControllableDrawerTile<EnderDrawerTile>
         this.frequency = frequency;
         this.lazyStorage.invalidate();
         this.lazyStorage = LazyOptional.of(() -> EnderSavedData.getInstance(this.level).getFrequency(this.frequency));
+        if (isServer()) EnderDrawerSyncService.markChanged(frequency);
         this.markForUpdate();
     }
 
@@ -9,7 +9,6 @@ import com.buuz135.functionalstorage.item.UpgradeItem;
 import com.hrznstudio.titanium.annotation.Save;
 import com.hrznstudio.titanium.block.BasicTileBlock;
 import com.hrznstudio.titanium.component.inventory.InventoryComponent;
-import com.hrznstudio.titanium.util.TileUtil;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.resources.ResourceLocation;
@@ -43,6 +42,9 @@ public class FluidDrawerTile extends ControllableDrawerTile<FluidDrawerTile> {
     @Save
     private BigFluidHandler fluidHandler;
     private FunctionalStorage.DrawerType type;
+    private int upgradeCycles = 0;
+    private boolean upgradesWorked = false;
+    private boolean collectorWorked = false;
 
     public FluidDrawerTile(BasicTileBlock<FluidDrawerTile> base, BlockEntityType<FluidDrawerTile> blockEntityType, BlockPos pos, BlockState state, FunctionalStorage.DrawerType type) {
         super(base, blockEntityType, pos, state);
@@ -50,7 +52,7 @@ public class FluidDrawerTile extends ControllableDrawerTile<FluidDrawerTile> {
         this.fluidHandler = new BigFluidHandler(type.getSlots(), getTankCapacity(getStorageMultiplier())) {
             @Override
             public void onChange() {
-                syncObject(fluidHandler);
+                markContentsChanged();
             }
 
             @Override
@@ -115,84 +117,97 @@ public class FluidDrawerTile extends ControllableDrawerTile<FluidDrawerTile> {
     }
 
     @Override
-    public void serverTick(Level level, BlockPos pos, BlockState stateOwn, FluidDrawerTile blockEntity) {
-        super.serverTick(level, pos, stateOwn, blockEntity);
-        if (level.getGameTime() % FunctionalStorageConfig.UPGRADE_TICK == 0) {
-            for (int i = 0; i < this.getUtilityUpgrades().getSlots(); i++) {
-                var stack = this.getUtilityUpgrades().getStackInSlot(i);
-                if (!stack.isEmpty()) {
-                    var item = stack.getItem();
-                    if (item.equals(FunctionalStorage.PUSHING_UPGRADE.get())) {
-                        var direction = UpgradeItem.getDirection(stack);
-                        TileUtil.getTileEntity(level, pos.relative(direction)).ifPresent(blockEntity1 -> {
-                            blockEntity1.getCapability(ForgeCapabilities.FLUID_HANDLER, direction.getOpposite()).ifPresent(otherFluidHandler -> {
-                                for (int tankId = 0; tankId < this.getFluidHandler().getTanks(); tankId++) {
-                                    var fluidTank = this.fluidHandler.getTankList()[tankId];
-                                    if (fluidTank.getFluid().isEmpty()) continue;
-                                    var extracted = fluidTank.drain(FunctionalStorageConfig.UPGRADE_PUSH_FLUID, IFluidHandler.FluidAction.SIMULATE);
-                                    if (extracted.isEmpty()) continue;
-                                    var insertedAmount = otherFluidHandler.fill(extracted, IFluidHandler.FluidAction.EXECUTE);
-                                    if (insertedAmount > 0) {
-                                        fluidTank.drain(insertedAmount, IFluidHandler.FluidAction.EXECUTE);
-                                        this.fluidHandler.onChange();
-                                        break;
-                                    }
-                                }
-                            });
-                        });
-                    }
-                    if (item.equals(FunctionalStorage.PULLING_UPGRADE.get())) {
-                        var direction = UpgradeItem.getDirection(stack);
-                        TileUtil.getTileEntity(level, pos.relative(direction)).ifPresent(blockEntity1 -> {
-                            blockEntity1.getCapability(ForgeCapabilities.FLUID_HANDLER, direction.getOpposite()).ifPresent(otherFluidHandler -> {
+    protected boolean tickUpgrades() {
+        Level level = this.level;
+        BlockPos pos = getBlockPos();
+        this.upgradesWorked = false;
+        this.upgradeCycles++;
+        for (int i = 0; i < this.getUtilityUpgrades().getSlots(); i++) {
+            var stack = this.getUtilityUpgrades().getStackInSlot(i);
+            if (!stack.isEmpty()) {
+                var item = stack.getItem();
+                if (item.equals(FunctionalStorage.PUSHING_UPGRADE.get())) {
+                    var direction = UpgradeItem.getDirection(stack);
+                    getNeighborCapability(ForgeCapabilities.FLUID_HANDLER, direction).ifPresent(otherFluidHandler -> {
+                        for (int tankId = 0; tankId < this.getFluidHandler().getTanks(); tankId++) {
+                            var fluidTank = this.fluidHandler.getTankList()[tankId];
+                            if (fluidTank.getFluid().isEmpty()) continue;
+                            var extracted = fluidTank.drain(FunctionalStorageConfig.UPGRADE_PUSH_FLUID, IFluidHandler.FluidAction.SIMULATE);
+                            if (extracted.isEmpty()) continue;
+                            var insertedAmount = otherFluidHandler.fill(extracted, IFluidHandler.FluidAction.EXECUTE);
+                            if (insertedAmount > 0) {
+                                fluidTank.drain(insertedAmount, IFluidHandler.FluidAction.EXECUTE);
+                                this.fluidHandler.onChange();
+                                this.upgradesWorked = true;
+                                break;
+                            }
+                        }
+                    });
+                }
+                if (item.equals(FunctionalStorage.PULLING_UPGRADE.get())) {
+                    var direction = UpgradeItem.getDirection(stack);
+                    getNeighborCapability(ForgeCapabilities.FLUID_HANDLER, direction).ifPresent(otherFluidHandler -> {
+                        for (int tankId = 0; tankId < this.getFluidHandler().getTanks(); tankId++) {
+                            var fluidTank = this.fluidHandler.getTankList()[tankId];
+                            var extracted = otherFluidHandler.drain(FunctionalStorageConfig.UPGRADE_PULL_FLUID, IFluidHandler.FluidAction.SIMULATE);
+                            if (extracted.isEmpty()) continue;
+                            var insertedAmount = fluidTank.fill(extracted, IFluidHandler.FluidAction.EXECUTE);
+                            if (insertedAmount > 0) {
+                                otherFluidHandler.drain(insertedAmount, IFluidHandler.FluidAction.EXECUTE);
+                                this.fluidHandler.onChange();
+                                this.upgradesWorked = true;
+                                break;
+                            }
+                        }
+                    });
+                }
+                if (item.equals(FunctionalStorage.COLLECTOR_UPGRADE.get()) && this.upgradeCycles % 3 != 0 && this.collectorWorked) {
+                    // the collector only runs every 3 cycles, the ones in between don't count as idle while it is collecting
+                    this.upgradesWorked = true;
+                }
+                if (item.equals(FunctionalStorage.COLLECTOR_UPGRADE.get()) && this.upgradeCycles % 3 == 0) {
+                    this.collectorWorked = false;
+                    var direction = UpgradeItem.getDirection(stack);
+                    var fluidstate = this.level.getFluidState(this.getBlockPos().relative(direction));
+                    if (!fluidstate.isEmpty() && fluidstate.isSource()) {
+                        BlockState state = level.getBlockState(pos.relative(direction));
+                        Block block = state.getBlock();
+                        IFluidHandler targetFluidHandler = null;
+                        if (block instanceof IFluidBlock) {
+                            targetFluidHandler = new FluidBlockWrapper((IFluidBlock) block, level, pos.relative(direction));
+                        } else if (block instanceof BucketPickup) {
+                            targetFluidHandler = new BucketPickupHandlerWrapper((BucketPickup) block, level, pos.relative(direction));
+                        }
+                        if (targetFluidHandler != null) {
+                            var drained = targetFluidHandler.drain(Integer.MAX_VALUE, IFluidHandler.FluidAction.SIMULATE);
+                            if (!drained.isEmpty()) {
                                 for (int tankId = 0; tankId < this.getFluidHandler().getTanks(); tankId++) {
                                     var fluidTank = this.fluidHandler.getTankList()[tankId];
-                                    var extracted = otherFluidHandler.drain(FunctionalStorageConfig.UPGRADE_PULL_FLUID, IFluidHandler.FluidAction.SIMULATE);
-                                    if (extracted.isEmpty()) continue;
-                                    var insertedAmount = fluidTank.fill(extracted, IFluidHandler.FluidAction.EXECUTE);
-                                    if (insertedAmount > 0) {
-                                        otherFluidHandler.drain(insertedAmount, IFluidHandler.FluidAction.EXECUTE);
+                                    var insertedAmount = fluidTank.fill(drained, IFluidHandler.FluidAction.SIMULATE);
+                                    if (insertedAmount == drained.getAmount()) {
+                                        fluidTank.fill(drained, IFluidHandler.FluidAction.EXECUTE);
+                                        if (!fluidstate.getType().canConvertToSource(fluidstate, level, this.getBlockPos().relative(direction)))
+                                            targetFluidHandler.drain(insertedAmount, IFluidHandler.FluidAction.EXECUTE);
                                         this.fluidHandler.onChange();
+                                        this.upgradesWorked = true;
+                                        this.collectorWorked = true;
                                         break;
                                     }
                                 }
-                            });
-                        });
-                    }
-                    if (item.equals(FunctionalStorage.COLLECTOR_UPGRADE.get()) && level.getGameTime() % (FunctionalStorageConfig.UPGRADE_TICK * 3) == 0) {
-                        var direction = UpgradeItem.getDirection(stack);
-                        var fluidstate = this.level.getFluidState(this.getBlockPos().relative(direction));
-                        if (!fluidstate.isEmpty() && fluidstate.isSource()) {
-                            BlockState state = level.getBlockState(pos.relative(direction));
-                            Block block = state.getBlock();
-                            IFluidHandler targetFluidHandler = null;
-                            if (block instanceof IFluidBlock) {
-                                targetFluidHandler = new FluidBlockWrapper((IFluidBlock) block, level, pos.relative(direction));
-                            } else if (block instanceof BucketPickup) {
-                                targetFluidHandler = new BucketPickupHandlerWrapper((BucketPickup) block, level, pos.relative(direction));
-                            }
-                            if (targetFluidHandler != null) {
-                                var drained = targetFluidHandler.drain(Integer.MAX_VALUE, IFluidHandler.FluidAction.SIMULATE);
-                                if (!drained.isEmpty()) {
-                                    for (int tankId = 0; tankId < this.getFluidHandler().getTanks(); tankId++) {
-                                        var fluidTank = this.fluidHandler.getTankList()[tankId];
-                                        var insertedAmount = fluidTank.fill(drained, IFluidHandler.FluidAction.SIMULATE);
-                                        if (insertedAmount == drained.getAmount()) {
-                                            fluidTank.fill(drained, IFluidHandler.FluidAction.EXECUTE);
-                                            if (!fluidstate.getType().canConvertToSource(fluidstate, level, this.getBlockPos().relative(direction)))
-                                                targetFluidHandler.drain(insertedAmount, IFluidHandler.FluidAction.EXECUTE);
-                                            this.fluidHandler.onChange();
-                                            break;
-                                        }
-                                    }
-                                }
                             }
                         }
                     }
                 }
             }
         }
+        return this.upgradesWorked;
     }
+
+    @Override
+    protected void syncContents() {
+        syncObject(fluidHandler);
+    }
+
     @Override
     public InteractionResult onSlotActivated(Player playerIn, InteractionHand hand, Direction facing, double hitX, double hitY, double hitZ, int slot) {
         ItemStack stack = playerIn.getItemInHand(hand);
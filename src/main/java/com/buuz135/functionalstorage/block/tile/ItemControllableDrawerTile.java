@@ -2,21 +2,26 @@ package com.buuz135.functionalstorage.block.tile;
 
 import com.buuz135.functionalstorage.FunctionalStorage;
 import com.buuz135.functionalstorage.block.config.FunctionalStorageConfig;
+import com.buuz135.functionalstorage.inventory.ILongItemHandler;
+import com.buuz135.functionalstorage.inventory.ISlotQuery;
 import com.buuz135.functionalstorage.item.StorageUpgradeItem;
 import com.buuz135.functionalstorage.item.UpgradeItem;
+import com.buuz135.functionalstorage.network.DrawerCountSyncMessage;
 import com.hrznstudio.titanium.block.BasicTileBlock;
 import com.hrznstudio.titanium.component.inventory.InventoryComponent;
 import com.hrznstudio.titanium.util.RayTraceUtils;
-import com.hrznstudio.titanium.util.TileUtil;
 import net.minecraft.ChatFormatting;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.InteractionHand;
 import net.minecraft.world.InteractionResult;
 import net.minecraft.world.entity.item.ItemEntity;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.entity.BlockEntityType;
 import net.minecraft.world.level.block.state.BlockState;
@@ -38,6 +43,9 @@ public abstract class ItemControllableDrawerTile<T extends ItemControllableDrawe
 
     private static HashMap<UUID, Long> INTERACTION_LOGGER = new HashMap<>();
     private int removeTicks = 0;
+    private boolean upgradesWorked = false;
+    private ItemStack[] syncedItems;
+    private long[] syncedCounts;
 
     public ItemControllableDrawerTile(BasicTileBlock<T> base, BlockEntityType<T> entityType, BlockPos pos, BlockState state) {
         super(base, entityType, pos, state);
@@ -53,83 +61,89 @@ public abstract class ItemControllableDrawerTile<T extends ItemControllableDrawe
     public void serverTick(Level level, BlockPos pos, BlockState state, T blockEntity) {
         super.serverTick(level, pos, state, blockEntity);
         this.removeTicks = Math.max(this.removeTicks - 1, 0);
-        if (level.getGameTime() % FunctionalStorageConfig.UPGRADE_TICK == 0) {
-            if (getUtilitySlotAmount() > 0){
-                for (int i = 0; i < this.getUtilityUpgrades().getSlots(); i++) {
-                    ItemStack stack = this.getUtilityUpgrades().getStackInSlot(i);
-                    if (!stack.isEmpty()) {
-                        Item item = stack.getItem();
-                        if (item.equals(FunctionalStorage.PULLING_UPGRADE.get())) {
-                            Direction direction = UpgradeItem.getDirection(stack);
-                            TileUtil.getTileEntity(level, pos.relative(direction)).ifPresent(blockEntity1 -> {
-                                blockEntity1.getCapability(ForgeCapabilities.ITEM_HANDLER, direction.getOpposite()).ifPresent(iItemHandler -> {
-                                    for (int otherSlot = 0; otherSlot < iItemHandler.getSlots(); otherSlot++) {
-                                        ItemStack pulledStack = iItemHandler.extractItem(otherSlot, FunctionalStorageConfig.UPGRADE_PULL_ITEMS, true);
-                                        if (pulledStack.isEmpty()) continue;
-                                        boolean hasWorked = false;
-                                        for (int ourSlot = 0; ourSlot < this.getStorage().getSlots(); ourSlot++) {
-                                            ItemStack simulated = getStorage().insertItem(ourSlot, pulledStack, true);
-                                            if (!simulated.equals(pulledStack)) {
-                                                ItemStack extracted = iItemHandler.extractItem(otherSlot, pulledStack.getCount() - simulated.getCount(), false);
-                                                getStorage().insertItem(ourSlot, extracted, false);
-                                                hasWorked = true;
-                                                break;
-                                            }
-                                        }
-                                        if (hasWorked) break;
-                                    }
-                                });
-                            });
-                        }
-                        if (item.equals(FunctionalStorage.PUSHING_UPGRADE.get())) {
-                            Direction direction = UpgradeItem.getDirection(stack);
-                            TileUtil.getTileEntity(level, pos.relative(direction)).ifPresent(blockEntity1 -> {
-                                blockEntity1.getCapability(ForgeCapabilities.ITEM_HANDLER, direction.getOpposite()).ifPresent(otherHandler -> {
-                                    for (int drawerSlot = 0; drawerSlot < getStorage().getSlots(); drawerSlot++) {
-                                        ItemStack pulledStack = getStorage().extractItem(drawerSlot, FunctionalStorageConfig.UPGRADE_PUSH_ITEMS, true);
-                                        if (pulledStack.isEmpty()) continue;
-                                        boolean hasWorked = false;
-                                        for (int destinationSlot = 0; destinationSlot < otherHandler.getSlots(); destinationSlot++) {
-                                            ItemStack otherHandlerStackInSlot = otherHandler.getStackInSlot(destinationSlot);
-                                            if (!otherHandlerStackInSlot.isEmpty() && !ItemStack.isSameItemSameTags(pulledStack, otherHandler.getStackInSlot(destinationSlot)))
-                                                continue;
-                                            if (otherHandler.getStackInSlot(destinationSlot).getCount() >= otherHandler.getSlotLimit(destinationSlot))
-                                                continue;
-                                            ItemStack simulated = otherHandler.insertItem(destinationSlot, pulledStack, true);
-                                            if (simulated.getCount() <= pulledStack.getCount()) {
-                                                otherHandler.insertItem(destinationSlot, getStorage().extractItem(drawerSlot, pulledStack.getCount() - simulated.getCount(), false), false);
-                                                hasWorked = true;
-                                                break;
-                                            }
-                                        }
-                                        if (hasWorked) break;
-                                    }
-                                });
-                            });
-                        }
-                        if (item.equals(FunctionalStorage.COLLECTOR_UPGRADE.get())) {
-                            Direction direction = UpgradeItem.getDirection(stack);
-                            AABB box = new AABB(pos.relative(direction));
-                            for (ItemEntity entitiesOfClass : level.getEntitiesOfClass(ItemEntity.class, box)) {
-                                ItemStack pulledStack = ItemHandlerHelper.copyStackWithSize(entitiesOfClass.getItem(), Math.min(entitiesOfClass.getItem().getCount(), FunctionalStorageConfig.UPGRADE_COLLECTOR_ITEMS));
+    }
+
+    @Override
+    protected boolean tickUpgrades() {
+        Level level = this.level;
+        BlockPos pos = getBlockPos();
+        this.upgradesWorked = false;
+        if (getUtilitySlotAmount() > 0){
+            for (int i = 0; i < this.getUtilityUpgrades().getSlots(); i++) {
+                ItemStack stack = this.getUtilityUpgrades().getStackInSlot(i);
+                if (!stack.isEmpty()) {
+                    Item item = stack.getItem();
+                    if (item.equals(FunctionalStorage.PULLING_UPGRADE.get())) {
+                        Direction direction = UpgradeItem.getDirection(stack);
+                        getNeighborCapability(ForgeCapabilities.ITEM_HANDLER, direction).ifPresent(iItemHandler -> {
+                            for (int otherSlot = 0; otherSlot < iItemHandler.getSlots(); otherSlot++) {
+                                ItemStack pulledStack = iItemHandler.extractItem(otherSlot, FunctionalStorageConfig.UPGRADE_PULL_ITEMS, true);
                                 if (pulledStack.isEmpty()) continue;
                                 boolean hasWorked = false;
                                 for (int ourSlot = 0; ourSlot < this.getStorage().getSlots(); ourSlot++) {
                                     ItemStack simulated = getStorage().insertItem(ourSlot, pulledStack, true);
-                                    if (simulated.getCount() != pulledStack.getCount()) {
-                                        getStorage().insertItem(ourSlot, ItemHandlerHelper.copyStackWithSize(entitiesOfClass.getItem(), pulledStack.getCount() - simulated.getCount()), false);
-                                        entitiesOfClass.getItem().shrink(pulledStack.getCount() - simulated.getCount());
+                                    if (!simulated.equals(pulledStack)) {
+                                        ItemStack extracted = iItemHandler.extractItem(otherSlot, pulledStack.getCount() - simulated.getCount(), false);
+                                        getStorage().insertItem(ourSlot, extracted, false);
+                                        hasWorked = true;
+                                        this.upgradesWorked = true;
+                                        break;
+                                    }
+                                }
+                                if (hasWorked) break;
+                            }
+                        });
+                    }
+                    if (item.equals(FunctionalStorage.PUSHING_UPGRADE.get())) {
+                        Direction direction = UpgradeItem.getDirection(stack);
+                        getNeighborCapability(ForgeCapabilities.ITEM_HANDLER, direction).ifPresent(otherHandler -> {
+                            for (int drawerSlot = 0; drawerSlot < getStorage().getSlots(); drawerSlot++) {
+                                if (getStoredAmount(drawerSlot) == 0) continue;
+                                ItemStack pulledStack = getStorage().extractItem(drawerSlot, FunctionalStorageConfig.UPGRADE_PUSH_ITEMS, true);
+                                if (pulledStack.isEmpty()) continue;
+                                boolean hasWorked = false;
+                                for (int destinationSlot = 0; destinationSlot < otherHandler.getSlots(); destinationSlot++) {
+                                    ItemStack otherHandlerStackInSlot = otherHandler.getStackInSlot(destinationSlot);
+                                    if (!otherHandlerStackInSlot.isEmpty() && !ItemStack.isSameItemSameTags(pulledStack, otherHandlerStackInSlot))
+                                        continue;
+                                    if (otherHandlerStackInSlot.getCount() >= otherHandler.getSlotLimit(destinationSlot))
+                                        continue;
+                                    ItemStack simulated = otherHandler.insertItem(destinationSlot, pulledStack, true);
+                                    if (simulated.getCount() <= pulledStack.getCount()) {
+                                        otherHandler.insertItem(destinationSlot, getStorage().extractItem(drawerSlot, pulledStack.getCount() - simulated.getCount(), false), false);
                                         hasWorked = true;
+                                        this.upgradesWorked = true;
                                         break;
                                     }
                                 }
                                 if (hasWorked) break;
                             }
+                        });
+                    }
+                    if (item.equals(FunctionalStorage.COLLECTOR_UPGRADE.get())) {
+                        Direction direction = UpgradeItem.getDirection(stack);
+                        AABB box = new AABB(pos.relative(direction));
+                        for (ItemEntity entitiesOfClass : level.getEntitiesOfClass(ItemEntity.class, box)) {
+                            ItemStack pulledStack = ItemHandlerHelper.copyStackWithSize(entitiesOfClass.getItem(), Math.min(entitiesOfClass.getItem().getCount(), FunctionalStorageConfig.UPGRADE_COLLECTOR_ITEMS));
+                            if (pulledStack.isEmpty()) continue;
+                            boolean hasWorked = false;
+                            for (int ourSlot = 0; ourSlot < this.getStorage().getSlots(); ourSlot++) {
+                                ItemStack simulated = getStorage().insertItem(ourSlot, pulledStack, true);
+                                if (simulated.getCount() != pulledStack.getCount()) {
+                                    getStorage().insertItem(ourSlot, ItemHandlerHelper.copyStackWithSize(entitiesOfClass.getItem(), pulledStack.getCount() - simulated.getCount()), false);
+                                    entitiesOfClass.getItem().shrink(pulledStack.getCount() - simulated.getCount());
+                                    hasWorked = true;
+                                    this.upgradesWorked = true;
+                                    break;
+                                }
+                            }
+                            if (hasWorked) break;
                         }
                     }
                 }
             }
         }
+        return this.upgradesWorked;
     }
 
     @Override
@@ -167,7 +181,7 @@ public abstract class ItemControllableDrawerTile<T extends ItemControllableDrawe
                 BlockHitResult blockResult = (BlockHitResult) rayTraceResult;
                 Direction facing = blockResult.getDirection();
                 if (facing.equals(this.getFacingDirection())) {
-                    ItemHandlerHelper.giveItemToPlayer(playerIn, getStorage().extractItem(slot, playerIn.isShiftKeyDown() ? getStorage().getStackInSlot(slot).getMaxStackSize() : 1, false));
+                    ItemHandlerHelper.giveItemToPlayer(playerIn, getStorage().extractItem(slot, playerIn.isShiftKeyDown() ? peekStoredStack(slot).getMaxStackSize() : 1, false));
                 }
             }
         }
@@ -175,6 +189,94 @@ public abstract class ItemControllableDrawerTile<T extends ItemControllableDrawe
 
     public abstract IItemHandler getStorage();
 
+    /**
+     * Amount of items stored in the slot, without copying the stack when the storage is a {@link ISlotQuery}.
+     */
+    public long getStoredAmount(int slot) {
+        return ISlotQuery.getAmount(getStorage(), slot);
+    }
+
+    /**
+     * Max amount of items the slot can hold, which can go over {@link Integer#MAX_VALUE} when the storage is a
+     * {@link ILongItemHandler}.
+     */
+    public long getStoredCapacity(int slot) {
+        if (getStorage() instanceof ILongItemHandler longItemHandler) return longItemHandler.getSlotCapacity(slot);
+        return getStorage().getSlotLimit(slot);
+    }
+
+    /**
+     * The stack stored in the slot, borrowed when the storage is a {@link ISlotQuery} so it must not be modified.
+     */
+    public ItemStack peekStoredStack(int slot) {
+        if (getStorage() instanceof ISlotQuery query) return query.peekStack(slot);
+        return getStorage().getStackInSlot(slot);
+    }
+
+    /**
+     * Amount of slots whose count is synced with a {@link DrawerCountSyncMessage} when the stored items didn't change,
+     * 0 if the drawer always syncs its whole tag.
+     */
+    protected int getSyncedCountSlots() {
+        return 0;
+    }
+
+    protected long getSyncedCount(int slot) {
+        return 0;
+    }
+
+    /**
+     * Sets on the client the count received in a {@link DrawerCountSyncMessage}.
+     */
+    public void setSyncedCount(int slot, long count) {
+
+    }
+
+    @Override
+    public void markForUpdate() {
+        super.markForUpdate();
+        if (this.level != null && isServer() && getSyncedCountSlots() > 0) {
+            this.syncedItems = new ItemStack[getStorage().getSlots()];
+            for (int i = 0; i < this.syncedItems.length; i++) {
+                this.syncedItems[i] = peekStoredStack(i).copy();
+            }
+            this.syncedCounts = new long[getSyncedCountSlots()];
+            for (int i = 0; i < this.syncedCounts.length; i++) {
+                this.syncedCounts[i] = getSyncedCount(i);
+            }
+        }
+    }
+
+    /**
+     * Only sends the changed counts when the stored items are the same as in the last full sync.
+     */
+    @Override
+    protected void syncContents() {
+        if (this.syncedItems == null || !hasSameSyncedItems()) {
+            super.syncContents();
+            return;
+        }
+        DrawerCountSyncMessage message = new DrawerCountSyncMessage(getBlockPos());
+        for (int i = 0; i < this.syncedCounts.length; i++) {
+            long count = getSyncedCount(i);
+            if (count == this.syncedCounts[i]) continue;
+            this.syncedCounts[i] = count;
+            message.add(i, count);
+        }
+        if (message.isEmpty() || !(this.level instanceof ServerLevel serverLevel)) return;
+        for (ServerPlayer player : serverLevel.getChunkSource().chunkMap.getPlayers(new ChunkPos(getBlockPos()), false)) {
+            FunctionalStorage.NETWORK.sendTo(message, player);
+        }
+    }
+
+    private boolean hasSameSyncedItems() {
+        if (this.syncedItems.length != getStorage().getSlots()) return false;
+        for (int i = 0; i < this.syncedItems.length; i++) {
+            if (!ItemStack.isSameItemSameTags(this.syncedItems[i], peekStoredStack(i))) return false;
+        }
+        return true;
+    }
+
     public abstract LazyOptional<IItemHandler> getOptional();
 
     public abstract int getBaseSize(int lost);
@@ -204,9 +306,10 @@ public abstract class ItemControllableDrawerTile<T extends ItemControllableDrawe
                         }
                     }
                     for (int i = 0; i < getStorage().getSlots(); i++) {
-                        if (getStorage().getStackInSlot(i).isEmpty()) continue;
-                        double stackSize = getStorage().getStackInSlot(i).getMaxStackSize() / 64D;
-                        if ((int) Math.floor(Math.min(Integer.MAX_VALUE, getBaseSize(i) * (long) mult) * stackSize) < getStorage().getStackInSlot(i).getCount()) {
+                        long stored = getStoredAmount(i);
+                        if (stored == 0) continue;
+                        double stackSize = peekStoredStack(i).getMaxStackSize() / 64D;
+                        if ((long) Math.floor(ILongItemHandler.clampCapacity(getBaseSize(i) * (long) mult) * stackSize) < stored) {
                             return ItemStack.EMPTY;
                         }
                     }
@@ -217,7 +320,7 @@ public abstract class ItemControllableDrawerTile<T extends ItemControllableDrawe
                 .setInputFilter((stack, integer) -> {
                     if (stack.getItem().equals(FunctionalStorage.STORAGE_UPGRADES.get(StorageUpgradeItem.StorageTier.IRON).get())) {
                         for (int i = 0; i < getStorage().getSlots(); i++) {
-                            if (getStorage().getStackInSlot(i).getCount() > 64) {
+                            if (getStoredAmount(i) > 64) {
                                 return false;
                             }
                         }
@@ -232,7 +335,7 @@ public abstract class ItemControllableDrawerTile<T extends ItemControllableDrawe
 
     public boolean isEverythingEmpty() {
         for (int i = 0; i < getStorage().getSlots(); i++) {
-            if (!getStorage().getStackInSlot(i).isEmpty()) {
+            if (getStoredAmount(i) > 0) {
                 return false;
             }
         }
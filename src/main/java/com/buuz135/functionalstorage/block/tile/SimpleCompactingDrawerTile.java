@@ -40,7 +40,7 @@ public class SimpleCompactingDrawerTile extends ItemControllableDrawerTile<Simpl
         this.handler = new CompactingInventoryHandler(2) {
             @Override
             public void onChange() {
-                SimpleCompactingDrawerTile.this.markForUpdate();
+                SimpleCompactingDrawerTile.this.markContentsChanged();
             }
 
             @Override
@@ -162,4 +162,19 @@ public class SimpleCompactingDrawerTile extends ItemControllableDrawerTile<Simpl
         return handler;
     }
 
+    @Override
+    protected int getSyncedCountSlots() {
+        return 1;
+    }
+
+    @Override
+    protected long getSyncedCount(int slot) {
+        return handler.getAmount();
+    }
+
+    @Override
+    public void setSyncedCount(int slot, long count) {
+        handler.setAmount(count);
+    }
+
 }
@@ -3,7 +3,6 @@ package com.buuz135.functionalstorage.block.tile;
 import com.buuz135.functionalstorage.FunctionalStorage;
 import com.buuz135.functionalstorage.item.ConfigurationToolItem;
 import com.hrznstudio.titanium.block.BasicTileBlock;
-import com.hrznstudio.titanium.util.TileUtil;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.world.InteractionHand;
@@ -18,8 +17,6 @@ import net.minecraftforge.items.IItemHandler;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.Optional;
-
 public abstract class StorageControllerExtensionTile<T extends StorageControllerExtensionTile<T>> extends ItemControllableDrawerTile<T> {
 
     public StorageControllerExtensionTile(BasicTileBlock<T> base, BlockEntityType<T> entityType, BlockPos pos, BlockState state) {
@@ -78,12 +75,6 @@ public abstract class StorageControllerExtensionTile<T extends StorageController
         return getControllerInstance().map(drawerControllerTile -> drawerControllerTile.getCapability(cap, side)).orElse(super.getCapability(cap, side));
     }
 
-    private Optional<StorageControllerTile> getControllerInstance() {
-        if (getControllerPos() == null) return Optional.empty();
-        if (level == null || !level.isLoaded(getControllerPos())) return Optional.empty();
-        return TileUtil.getTileEntity(this.level, getControllerPos(), StorageControllerTile.class);
-    }
-
     @Override
     public void invalidateCaps() {
 
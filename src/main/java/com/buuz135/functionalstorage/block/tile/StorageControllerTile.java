@@ -5,7 +5,7 @@ import com.buuz135.functionalstorage.block.StorageControllerBlock;
 import com.buuz135.functionalstorage.block.config.FunctionalStorageConfig;
 import com.buuz135.functionalstorage.fluid.ControllerFluidHandler;
 import com.buuz135.functionalstorage.inventory.ControllerInventoryHandler;
-import com.buuz135.functionalstorage.inventory.ILockable;
+import com.buuz135.functionalstorage.inventory.IAggregatedItemHandler;
 import com.buuz135.functionalstorage.item.ConfigurationToolItem;
 import com.buuz135.functionalstorage.item.LinkingToolItem;
 import com.buuz135.functionalstorage.item.StorageUpgradeItem;
@@ -30,6 +30,7 @@ import net.minecraft.world.level.block.entity.BlockEntityType;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.phys.AABB;
 import net.minecraft.world.phys.Vec3;
+import net.minecraft.world.phys.shapes.VoxelShape;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import net.minecraftforge.common.capabilities.Capability;
@@ -43,6 +44,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.UUID;
 
 public abstract class StorageControllerTile<T extends StorageControllerTile<T>> extends ItemControllableDrawerTile<T> {
@@ -55,6 +57,7 @@ public abstract class StorageControllerTile<T extends StorageControllerTile<T>>
     public ControllerFluidHandler fluidHandler;
     protected LazyOptional<IItemHandler> itemHandlerLazyOptional;
     protected LazyOptional<IFluidHandler> fluidHandlerLazyOptional;
+    protected LazyOptional<IAggregatedItemHandler> aggregatedHandlerLazyOptional;
 
     public StorageControllerTile(BasicTileBlock<T> base, BlockEntityType<T> entityType, BlockPos pos, BlockState state) {
         super(base, entityType, pos, state);
@@ -66,6 +69,7 @@ public abstract class StorageControllerTile<T extends StorageControllerTile<T>>
             }
         };
         this.itemHandlerLazyOptional = LazyOptional.of(() -> this.inventoryHandler);
+        this.aggregatedHandlerLazyOptional = LazyOptional.of(() -> this.inventoryHandler.getAggregatedView());
         this.fluidHandler = new ControllerFluidHandler() {
             @Override
             public ConnectedDrawers getDrawers() {
@@ -75,6 +79,12 @@ public abstract class StorageControllerTile<T extends StorageControllerTile<T>>
         this.fluidHandlerLazyOptional = LazyOptional.of(() -> this.fluidHandler);
     }
 
+    @Override
+    public void setLevel(Level level) {
+        super.setLevel(level);
+        this.connectedDrawers.setLevel(level);
+    }
+
     @Override
     public int getStorageSlotAmount() {
         return 4;
@@ -86,12 +96,32 @@ public abstract class StorageControllerTile<T extends StorageControllerTile<T>>
     }
 
     @Override
-    public void serverTick(Level level, BlockPos pos, BlockState state, T blockEntity) {
-        super.serverTick(level, pos, state, blockEntity);
-        if (this.connectedDrawers.getConnectedDrawers().size() != (this.connectedDrawers.getItemHandlers().size() + this.connectedDrawers.getFluidHandlers().size() + this.connectedDrawers.getExtensions())) {
-            this.connectedDrawers.getConnectedDrawers().removeIf(aLong -> !(this.getLevel().getBlockEntity(BlockPos.of(aLong)) instanceof ControllableDrawerTile<?>));
-            this.connectedDrawers.setLevel(getLevel());
+    public void onLoad() {
+        super.onLoad();
+        if (isServer()) {
             this.connectedDrawers.rebuild();
+        }
+    }
+
+    /**
+     * Called by a linked drawer when its chunk gets loaded, drawers in unloaded chunks are skipped by {@link ConnectedDrawers#rebuild()}.
+     */
+    public void onDrawerLoaded(BlockPos pos) {
+        this.connectedDrawers.loadDrawer(pos.asLong());
+    }
+
+    /**
+     * Called by a linked drawer when its chunk gets unloaded, the drawer stays linked but its handlers are dropped until it loads again.
+     */
+    public void onDrawerUnloaded(BlockPos pos) {
+        this.connectedDrawers.unloadDrawer(pos.asLong());
+    }
+
+    /**
+     * Called by a linked drawer when it's removed from the world.
+     */
+    public void onDrawerRemoved(BlockPos pos) {
+        if (this.connectedDrawers.removeDrawer(pos.asLong())) {
             markForUpdate();
             updateNeigh();
         }
@@ -107,36 +137,18 @@ public abstract class StorageControllerTile<T extends StorageControllerTile<T>>
             } else {
                 playerIn.displayClientMessage(Component.translatable("gui.functionalstorage.open_gui").withStyle(ChatFormatting.GRAY), true);
             }
-            for (IItemHandler iItemHandler : this.connectedDrawers.getItemHandlers()) {
-                if (iItemHandler instanceof ILockable && ((ILockable) iItemHandler).isLocked()) {
-                    for (int slot = 0; slot < iItemHandler.getSlots(); slot++) {
-                        if (!stack.isEmpty() && iItemHandler.insertItem(slot, stack, true).getCount() != stack.getCount()) {
-                            playerIn.setItemInHand(hand, iItemHandler.insertItem(slot, stack, false));
-                            return InteractionResult.SUCCESS;
-                        } else if (System.currentTimeMillis() - INTERACTION_LOGGER.getOrDefault(playerIn.getUUID(), System.currentTimeMillis()) < 300) {
-                            for (ItemStack itemStack : playerIn.getInventory().items) {
-                                if (!itemStack.isEmpty() && iItemHandler.insertItem(slot, itemStack, true).getCount() != itemStack.getCount()) {
-                                    itemStack.setCount(iItemHandler.insertItem(slot, itemStack.copy(), false).getCount());
-                                }
-                            }
-                        }
-                    }
+            if (!stack.isEmpty()) {
+                ItemStack remaining = this.inventoryHandler.insertItems(List.of(stack), false, false).get(0);
+                if (remaining.getCount() != stack.getCount()) {
+                    playerIn.setItemInHand(hand, remaining);
+                    return InteractionResult.SUCCESS;
                 }
             }
-            for (IItemHandler iItemHandler : this.connectedDrawers.getItemHandlers()) {
-                if (iItemHandler instanceof ILockable && !((ILockable) iItemHandler).isLocked()) {
-                    for (int slot = 0; slot < iItemHandler.getSlots(); slot++) {
-                        if (!stack.isEmpty() && !iItemHandler.getStackInSlot(slot).isEmpty() && iItemHandler.insertItem(slot, stack, true).getCount() != stack.getCount()) {
-                            playerIn.setItemInHand(hand, iItemHandler.insertItem(slot, stack, false));
-                            return InteractionResult.SUCCESS;
-                        } else if (System.currentTimeMillis() - INTERACTION_LOGGER.getOrDefault(playerIn.getUUID(), System.currentTimeMillis()) < 300) {
-                            for (ItemStack itemStack : playerIn.getInventory().items) {
-                                if (!itemStack.isEmpty() && !iItemHandler.getStackInSlot(slot).isEmpty() && iItemHandler.insertItem(slot, itemStack, true).getCount() != itemStack.getCount()) {
-                                    itemStack.setCount(iItemHandler.insertItem(slot, itemStack.copy(), false).getCount());
-                                }
-                            }
-                        }
-                    }
+            if (System.currentTimeMillis() - INTERACTION_LOGGER.getOrDefault(playerIn.getUUID(), System.currentTimeMillis()) < 300) {
+                List<ItemStack> items = playerIn.getInventory().items;
+                List<ItemStack> remainders = this.inventoryHandler.insertItems(items, false, false);
+                for (int i = 0; i < items.size(); i++) {
+                    if (remainders.get(i) != items.get(i)) items.get(i).setCount(remainders.get(i).getCount());
                 }
             }
             INTERACTION_LOGGER.put(playerIn.getUUID(), System.currentTimeMillis());
@@ -233,19 +245,17 @@ public abstract class StorageControllerTile<T extends StorageControllerTile<T>>
             if (area.contains(Vec3.atCenterOf(position)) && this.getLevel().getBlockEntity(position) instanceof ControllableDrawerTile<?> controllableDrawerTile) {
                 if (action == LinkingToolItem.ActionMode.ADD) {
                     controllableDrawerTile.setControllerPos(this.getBlockPos());
-                    if (!connectedDrawers.getConnectedDrawers().contains(position.asLong())){
-                        this.connectedDrawers.getConnectedDrawers().add(position.asLong());
+                    if (this.connectedDrawers.addDrawer(position.asLong())){
                         didWork = true;
                     }
                 }
             }
             if (action == LinkingToolItem.ActionMode.REMOVE) {
-                this.connectedDrawers.getConnectedDrawers().removeIf(aLong -> aLong == position.asLong());
+                this.connectedDrawers.removeDrawer(position.asLong());
                 TileUtil.getTileEntity(level, position, ControllableDrawerTile.class).ifPresent(controllableDrawerTile -> controllableDrawerTile.clearControllerPos());
                 didWork = true;
             }
         }
-        this.connectedDrawers.rebuild();
 
         markForUpdate();
         return didWork;
@@ -260,6 +270,9 @@ public abstract class StorageControllerTile<T extends StorageControllerTile<T>>
         if (cap == ForgeCapabilities.FLUID_HANDLER) {
             return fluidHandlerLazyOptional.cast();
         }
+        if (cap == FunctionalStorage.AGGREGATED_ITEM_HANDLER) {
+            return aggregatedHandlerLazyOptional.cast();
+        }
         return super.getCapability(cap, side);
     }
 
@@ -268,11 +281,20 @@ public abstract class StorageControllerTile<T extends StorageControllerTile<T>>
         super.invalidateCaps();
         this.fluidHandlerLazyOptional.invalidate();
         this.itemHandlerLazyOptional.invalidate();
+        this.aggregatedHandlerLazyOptional.invalidate();
     }
 
+    /**
+     * Covers the linking area and the connected drawers, which is everything the controller renderer draws.
+     */
     @Override
     public AABB getRenderBoundingBox() {
-        return super.getRenderBoundingBox().inflate(1200);
+        AABB area = this.connectedDrawers.getLinkingArea();
+        VoxelShape shape = this.connectedDrawers.getCachedVoxelShape();
+        if (shape != null && !shape.isEmpty()) {
+            area = area.minmax(shape.bounds());
+        }
+        return area;
     }
 
     @Override
@@ -281,7 +303,7 @@ public abstract class StorageControllerTile<T extends StorageControllerTile<T>>
                 .setInputFilter((stack, integer) -> {
                     if (stack.getItem().equals(FunctionalStorage.STORAGE_UPGRADES.get(StorageUpgradeItem.StorageTier.IRON).get())) {
                         for (int i = 0; i < getStorage().getSlots(); i++) {
-                            if (getStorage().getStackInSlot(i).getCount() > 64) {
+                            if (getStoredAmount(i) > 64) {
                                 return false;
                             }
                         }
@@ -290,8 +312,8 @@ public abstract class StorageControllerTile<T extends StorageControllerTile<T>>
                 })
                 .setOnSlotChanged((stack, integer) -> {
                     setNeedsUpgradeCache(true);
-                    this.connectedDrawers.rebuild();
-                    this.connectedDrawers.rebuildShapes();
+                    this.connectedDrawers.updateRange();
+                    this.connectedDrawers.invalidateShapes();
                     markForUpdate();
                 })
                 .setSlotLimit(1);
@@ -1,6 +1,5 @@
 package com.buuz135.functionalstorage.client;
 
-import com.buuz135.functionalstorage.block.config.FunctionalStorageConfig;
 import com.buuz135.functionalstorage.block.tile.StorageControllerTile;
 import com.buuz135.functionalstorage.item.LinkingToolItem;
 import com.hrznstudio.titanium.util.RayTraceUtils;
@@ -73,11 +72,8 @@ public class ControllerRenderer implements BlockEntityRenderer<StorageController
     @Override
     public void render(StorageControllerTile tile, float partialTicks, PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLightIn, int combinedOverlayIn) {
         ItemStack stack = Minecraft.getInstance().player.getMainHandItem();
-        if (stack.isEmpty()) return;
-        if (stack.getItem() instanceof LinkingToolItem) {
-            CompoundTag controllerNBT = stack.getOrCreateTag().getCompound(NBT_CONTROLLER);
-            BlockPos controller = new BlockPos(controllerNBT.getInt("X"), controllerNBT.getInt("Y"), controllerNBT.getInt("Z"));
-            if (!controller.equals(tile.getBlockPos())) return;
+        if (isLinkingTool(stack, tile)) {
+            BlockPos controller = tile.getBlockPos();
             if (stack.getOrCreateTag().contains(NBT_FIRST)) {
                 CompoundTag firstpos = stack.getOrCreateTag().getCompound(NBT_FIRST);
                 BlockPos firstPos = new BlockPos(firstpos.getInt("X"), firstpos.getInt("Y"), firstpos.getInt("Z"));
@@ -92,11 +88,7 @@ public class ControllerRenderer implements BlockEntityRenderer<StorageController
             }
 
 
-            VoxelShape shape = tile.getConnectedDrawers().getCachedVoxelShape();
-            if (shape == null || tile.getLevel().getGameTime() % 400 == 0) {
-                tile.getConnectedDrawers().rebuildShapes();
-                shape = tile.getConnectedDrawers().getCachedVoxelShape();
-            }
+            VoxelShape shape = tile.getConnectedDrawers().getVoxelShape();
             //LevelRenderer.renderVoxelShape(matrixStack, bufferIn.getBuffer(TYPE), shape, -tile.getBlockPos().getX(), -tile.getBlockPos().getY(), -tile.getBlockPos().getZ(), 1f, 1f, 1f, 1f);
             List<AABB> list = shape.toAabbs();
             int i = Mth.ceil((double) list.size() / 3.0D);
@@ -110,21 +102,26 @@ public class ControllerRenderer implements BlockEntityRenderer<StorageController
                 float f4 = 1;
                 renderShape(matrixStack, bufferIn.getBuffer(TYPE), Shapes.create(aabb.move(0.0D, 0.0D, 0.0D)), -tile.getBlockPos().getX(), -tile.getBlockPos().getY(), -tile.getBlockPos().getZ(), f2, f3, f4, 1.0F);
             }
-            var extraRange = tile.getStorageMultiplier();
-            if (extraRange == 1){
-                extraRange = 0;
-            }
-            var area = new AABB(tile.getBlockPos())
-                    .inflate(FunctionalStorageConfig.DRAWER_CONTROLLER_LINKING_RANGE + extraRange);
+            var area = tile.getConnectedDrawers().getLinkingArea();
             renderShape(matrixStack, bufferIn.getBuffer(TYPE), Shapes.create(area), -tile.getBlockPos().getX(), -tile.getBlockPos().getY(), -tile.getBlockPos().getZ(), 0.5f, 1, 0.5f, 1.0F);
             renderFaces(matrixStack, bufferIn, area , -tile.getBlockPos().getX(), -tile.getBlockPos().getY(), -tile.getBlockPos().getZ(), 0.5f, 1, 0.5f , 0.25f);
         }
 
     }
 
+    /**
+     * The overlay is only drawn while the player holds a linking tool bound to this controller.
+     */
     @Override
     public boolean shouldRender(StorageControllerTile p_173568_, Vec3 p_173569_) {
-        return true;
+        return Minecraft.getInstance().player != null && isLinkingTool(Minecraft.getInstance().player.getMainHandItem(), p_173568_);
+    }
+
+    private static boolean isLinkingTool(ItemStack stack, StorageControllerTile tile) {
+        if (!(stack.getItem() instanceof LinkingToolItem) || !stack.hasTag() || !stack.getTag().contains(NBT_CONTROLLER)) return false;
+        CompoundTag controllerNBT = stack.getTag().getCompound(NBT_CONTROLLER);
+        BlockPos pos = tile.getBlockPos();
+        return controllerNBT.getInt("X") == pos.getX() && controllerNBT.getInt("Y") == pos.getY() && controllerNBT.getInt("Z") == pos.getZ();
     }
 
     @Override
@@ -0,0 +1,240 @@
+package com.buuz135.functionalstorage.client;
+
+import com.buuz135.functionalstorage.block.tile.ControllableDrawerTile;
+import com.buuz135.functionalstorage.item.ConfigurationToolItem;
+import com.mojang.blaze3d.vertex.PoseStack;
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import net.minecraft.client.renderer.MultiBufferSource;
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.util.Mth;
+import org.joml.Matrix3f;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the vertices rendered on the front of a drawer so a drawer whose contents, options and lighting didn't change
+ * since the last frame replays them instead of running the item and font renderers again.
+ * <p>
+ * Before rendering, the renderer passes everything the vertices depend on through the {@code key} methods, in the same
+ * order every frame, and then checks {@link #isValid()}. When it isn't valid the contents are rendered again into
+ * {@link #record()} with a fresh {@link PoseStack}, vertices are stored relative to it and moved to the drawer with
+ * {@link #replay(PoseStack, MultiBufferSource)}.
+ */
+public class DrawerRenderCache {
+
+    private final Map<RenderType, VertexRecorder> recorders = new LinkedHashMap<>();
+    private final MultiBufferSource recordingSource = renderType -> recorders.computeIfAbsent(renderType, type -> new VertexRecorder());
+    private Object[] references = new Object[0];
+    private long[] values = new long[0];
+    private int referenceIndex;
+    private int valueIndex;
+    private boolean matches;
+    private boolean built;
+    private boolean cacheable;
+
+    public DrawerRenderCache begin() {
+        this.referenceIndex = 0;
+        this.valueIndex = 0;
+        this.matches = this.built;
+        return this;
+    }
+
+    /**
+     * Keys an object by identity.
+     */
+    public DrawerRenderCache key(Object reference) {
+        if (this.referenceIndex == this.references.length) {
+            this.references = Arrays.copyOf(this.references, this.referenceIndex + 4);
+            this.matches = false;
+        }
+        if (this.references[this.referenceIndex] != reference) {
+            this.references[this.referenceIndex] = reference;
+            this.matches = false;
+        }
+        this.referenceIndex++;
+        return this;
+    }
+
+    public DrawerRenderCache key(long value) {
+        if (this.valueIndex == this.values.length) {
+            this.values = Arrays.copyOf(this.values, this.valueIndex + 8);
+            this.matches = false;
+        }
+        if (this.values[this.valueIndex] != value) {
+            this.values[this.valueIndex] = value;
+            this.matches = false;
+        }
+        this.valueIndex++;
+        return this;
+    }
+
+    public DrawerRenderCache key(ControllableDrawerTile.DrawerOptions options) {
+        for (Map.Entry<ConfigurationToolItem.ConfigurationAction, Boolean> entry : options.options.entrySet()) {
+            key(entry.getKey()).key(entry.getValue() ? 1 : 0);
+        }
+        for (Map.Entry<ConfigurationToolItem.ConfigurationAction, Integer> entry : options.advancedOptions.entrySet()) {
+            key(entry.getKey()).key(entry.getValue().intValue());
+        }
+        return this;
+    }
+
+    public boolean isValid() {
+        return this.matches && this.referenceIndex == this.references.length && this.valueIndex == this.values.length;
+    }
+
+    /**
+     * Whether the recorded vertices can be replayed, drawers showing items that change how they look on their own, like
+     * a clock, are rendered every frame.
+     */
+    public boolean isCacheable() {
+        return this.cacheable;
+    }
+
+    /**
+     * Clears the recorded vertices and stores the current key.
+     *
+     * @return the buffer source to render the contents into
+     */
+    public MultiBufferSource record() {
+        if (this.referenceIndex < this.references.length) this.references = Arrays.copyOf(this.references, this.referenceIndex);
+        if (this.valueIndex < this.values.length) this.values = Arrays.copyOf(this.values, this.valueIndex);
+        this.recorders.clear();
+        this.built = true;
+        this.cacheable = true;
+        return this.recordingSource;
+    }
+
+    /**
+     * Stores the current key without recording anything, the contents have to be rendered every frame until the key
+     * changes.
+     */
+    public void skip() {
+        record();
+        this.cacheable = false;
+    }
+
+    public void replay(PoseStack poseStack, MultiBufferSource bufferSource) {
+        Matrix4f pose = poseStack.last().pose();
+        Matrix3f normal = poseStack.last().normal();
+        for (Map.Entry<RenderType, VertexRecorder> entry : this.recorders.entrySet()) {
+            if (entry.getValue().size == 0) continue;
+            entry.getValue().replay(bufferSource.getBuffer(entry.getKey()), pose, normal);
+        }
+    }
+
+    private static class VertexRecorder implements VertexConsumer {
+
+        private static final int STRIDE = 9;
+
+        private final Vector3f position = new Vector3f();
+        private final Vector3f normalVector = new Vector3f();
+        private int[] data = new int[STRIDE * 64];
+        private int size;
+        private float x;
+        private float y;
+        private float z;
+        private int color = -1;
+        private float u;
+        private float v;
+        private int overlay;
+        private int light;
+        private int normal;
+        private int defaultColor;
+        private boolean hasDefaultColor;
+
+        @Override
+        public VertexConsumer vertex(double x, double y, double z) {
+            this.x = (float) x;
+            this.y = (float) y;
+            this.z = (float) z;
+            return this;
+        }
+
+        @Override
+        public VertexConsumer color(int red, int green, int blue, int alpha) {
+            this.color = alpha << 24 | red << 16 | green << 8 | blue;
+            return this;
+        }
+
+        @Override
+        public VertexConsumer uv(float u, float v) {
+            this.u = u;
+            this.v = v;
+            return this;
+        }
+
+        @Override
+        public VertexConsumer overlayCoords(int u, int v) {
+            this.overlay = u & 0xFFFF | v << 16;
+            return this;
+        }
+
+        @Override
+        public VertexConsumer uv2(int u, int v) {
+            this.light = u & 0xFFFF | v << 16;
+            return this;
+        }
+
+        @Override
+        public VertexConsumer normal(float x, float y, float z) {
+            this.normal = packNormal(x) | packNormal(y) << 8 | packNormal(z) << 16;
+            return this;
+        }
+
+        @Override
+        public void endVertex() {
+            if (this.size + STRIDE > this.data.length) {
+                this.data = Arrays.copyOf(this.data, this.data.length * 2);
+            }
+            int[] data = this.data;
+            int i = this.size;
+            data[i] = Float.floatToRawIntBits(this.x);
+            data[i + 1] = Float.floatToRawIntBits(this.y);
+            data[i + 2] = Float.floatToRawIntBits(this.z);
+            data[i + 3] = this.hasDefaultColor ? this.defaultColor : this.color;
+            data[i + 4] = Float.floatToRawIntBits(this.u);
+            data[i + 5] = Float.floatToRawIntBits(this.v);
+            data[i + 6] = this.overlay;
+            data[i + 7] = this.light;
+            data[i + 8] = this.normal;
+            this.size += STRIDE;
+        }
+
+        @Override
+        public void defaultColor(int red, int green, int blue, int alpha) {
+            this.defaultColor = alpha << 24 | red << 16 | green << 8 | blue;
+            this.hasDefaultColor = true;
+        }
+
+        @Override
+        public void unsetDefaultColor() {
+            this.hasDefaultColor = false;
+        }
+
+        private void replay(VertexConsumer consumer, Matrix4f pose, Matrix3f normalMatrix) {
+            int[] data = this.data;
+            for (int i = 0; i < this.size; i += STRIDE) {
+                pose.transformPosition(Float.intBitsToFloat(data[i]), Float.intBitsToFloat(data[i + 1]), Float.intBitsToFloat(data[i + 2]), this.position);
+                int packedNormal = data[i + 8];
+                normalMatrix.transform(unpackNormal(packedNormal), unpackNormal(packedNormal >> 8), unpackNormal(packedNormal >> 16), this.normalVector);
+                int color = data[i + 3];
+                consumer.vertex(this.position.x(), this.position.y(), this.position.z(),
+                        (color >> 16 & 255) / 255F, (color >> 8 & 255) / 255F, (color & 255) / 255F, (color >>> 24) / 255F,
+                        Float.intBitsToFloat(data[i + 4]), Float.intBitsToFloat(data[i + 5]), data[i + 6], data[i + 7],
+                        this.normalVector.x(), this.normalVector.y(), this.normalVector.z());
+            }
+        }
+
+        private static int packNormal(float value) {
+            return (int) (Mth.clamp(value, -1, 1) * 127) & 255;
+        }
+
+        private static float unpackNormal(int packed) {
+            return (byte) packed / 127F;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.buuz135.functionalstorage.client;
+
+import com.buuz135.functionalstorage.block.tile.ControllableDrawerTile;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.culling.Frustum;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.Vec3;
+
+/**
+ * How much of the contents of a drawer is rendered, depending on how far the player is from it and whether its front
+ * can be seen.
+ */
+public enum DrawerRenderDetail {
+
+    /**
+     * Contents rendered with their model, amount, indicator and upgrades.
+     */
+    FULL,
+    /**
+     * Contents rendered as a flat icon, without amount, indicator or upgrades.
+     */
+    ICON,
+    /**
+     * Nothing is rendered.
+     */
+    NONE;
+
+    private static Frustum frustum;
+
+    /**
+     * Picks the detail from the distance to the player, {@link #NONE} when the front of the drawer can't be seen because
+     * the camera is behind it, it is covered by an opaque block or it is out of the view frustum.
+     */
+    public static DrawerRenderDetail of(ControllableDrawerTile<?> tile) {
+        if (Minecraft.getInstance().player == null) return FULL;
+        double distance = tile.getBlockPos().distSqr(Minecraft.getInstance().player.getOnPos());
+        DrawerRenderDetail detail;
+        if (distance < square(FunctionalStorageClientConfig.DRAWER_RENDER_RANGE)) detail = FULL;
+        else if (distance < square(FunctionalStorageClientConfig.DRAWER_ICON_RENDER_RANGE)) detail = ICON;
+        else return NONE;
+        return isFrontVisible(tile, tile.getFacingDirection()) ? detail : NONE;
+    }
+
+    private static boolean isFrontVisible(ControllableDrawerTile<?> tile, Direction facing) {
+        BlockPos pos = tile.getBlockPos();
+        Vec3 camera = Minecraft.getInstance().gameRenderer.getMainCamera().getPosition();
+        double cameraOffset = (camera.x - pos.getX() - 0.5) * facing.getStepX() + (camera.y - pos.getY() - 0.5) * facing.getStepY() + (camera.z - pos.getZ() - 0.5) * facing.getStepZ();
+        if (cameraOffset <= 0.5) return false;
+        Level level = tile.getLevel();
+        BlockPos front = pos.relative(facing);
+        if (level != null && level.getBlockState(front).isSolidRender(level, front)) return false;
+        if (frustum == null) return true;
+        Direction.Axis axis = facing.getAxis();
+        return frustum.isVisible(AABB.ofSize(Vec3.atCenterOf(pos).relative(facing, 0.4), axis.choose(0.3, 1, 1), axis.choose(1, 0.3, 1), axis.choose(1, 1, 0.3)));
+    }
+
+    /**
+     * Sets the frustum of the frame that is being rendered, captured before block entities are rendered.
+     */
+    public static void setFrustum(Frustum frustum) {
+        DrawerRenderDetail.frustum = frustum;
+    }
+
+    private static double square(int range) {
+        return (double) range * range;
+    }
+}
@@ -17,6 +17,7 @@ import net.minecraft.client.renderer.MultiBufferSource;
 import net.minecraft.client.renderer.RenderType;
 import net.minecraft.client.renderer.blockentity.BlockEntityRenderer;
 import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.client.renderer.block.model.ItemOverrides;
 import net.minecraft.client.resources.model.BakedModel;
 import net.minecraft.core.Direction;
 import net.minecraft.network.chat.Component;
@@ -25,18 +26,47 @@ import net.minecraft.world.inventory.InventoryMenu;
 import net.minecraft.world.item.ItemDisplayContext;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.Level;
+import net.minecraftforge.client.model.data.ModelData;
 import org.joml.Matrix4f;
 import org.joml.Vector3f;
 
+import java.util.Map;
+import java.util.WeakHashMap;
+
 import static com.buuz135.functionalstorage.util.MathUtils.createTransformMatrix;
 
 public class DrawerRenderer implements BlockEntityRenderer<DrawerTile> {
-	
+
+    private final Map<DrawerTile, DrawerRenderCache> renderCaches = new WeakHashMap<>();
+
     @Override
     public void render(DrawerTile tile, float partialTicks, PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLightIn, int combinedOverlayIn) {
-        if (Minecraft.getInstance().player != null && !tile.getBlockPos().closerThan(Minecraft.getInstance().player.getOnPos(), FunctionalStorageClientConfig.DRAWER_RENDER_RANGE)){
+        DrawerRenderDetail detail = DrawerRenderDetail.of(tile);
+        if (detail == DrawerRenderDetail.NONE) {
+            return;
+        }
+        Direction facing = tile.getFacingDirection();
+        combinedLightIn = LevelRenderer.getLightColor(tile.getLevel(), tile.getBlockPos().relative(facing));
+        if (!FunctionalStorageClientConfig.DRAWER_RENDER_CACHE) {
+            renderContents(tile, matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, detail);
             return;
         }
+        DrawerRenderCache cache = this.renderCaches.computeIfAbsent(tile, drawerTile -> new DrawerRenderCache());
+        if (!keyContents(cache.begin(), tile, combinedLightIn, combinedOverlayIn, detail).isValid()) {
+            if (isCacheable(tile)) {
+                renderContents(tile, new PoseStack(), cache.record(), combinedLightIn, combinedOverlayIn, detail);
+            } else {
+                cache.skip();
+            }
+        }
+        if (cache.isCacheable()) {
+            cache.replay(matrixStack, bufferIn);
+        } else {
+            renderContents(tile, matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, detail);
+        }
+    }
+
+    private void renderContents(DrawerTile tile, PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLightIn, int combinedOverlayIn, DrawerRenderDetail detail) {
         matrixStack.pushPose();
 
         Direction facing = tile.getFacingDirection();
@@ -60,14 +90,52 @@ public class DrawerRenderer implements BlockEntityRenderer<DrawerTile> {
         			new Vector3f(0, 0, 0), new Vector3f(0, 90, 0), 1));
         }
         matrixStack.translate(0,0,-0.5/16D);
-        combinedLightIn = LevelRenderer.getLightColor(tile.getLevel(), tile.getBlockPos().relative(facing));
-        renderUpgrades(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, tile);
-        if (tile.getDrawerType() == FunctionalStorage.DrawerType.X_1) render1Slot(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, tile);
-        if (tile.getDrawerType() == FunctionalStorage.DrawerType.X_2) render2Slot(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, tile);
-        if (tile.getDrawerType() == FunctionalStorage.DrawerType.X_4) render4Slot(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, tile);
+        if (detail == DrawerRenderDetail.FULL) renderUpgrades(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, tile);
+        if (tile.getDrawerType() == FunctionalStorage.DrawerType.X_1) render1Slot(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, tile, detail);
+        if (tile.getDrawerType() == FunctionalStorage.DrawerType.X_2) render2Slot(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, tile, detail);
+        if (tile.getDrawerType() == FunctionalStorage.DrawerType.X_4) render4Slot(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, tile, detail);
         matrixStack.popPose();
     }
 
+    /**
+     * Keys everything the front of the drawer depends on, so its recorded vertices are only rebuilt when one changes.
+     */
+    private static DrawerRenderCache keyContents(DrawerRenderCache cache, DrawerTile tile, int combinedLightIn, int combinedOverlayIn, DrawerRenderDetail detail) {
+        cache.key(detail)
+                .key(tile.getFacingDirection())
+                .key(combinedLightIn)
+                .key(combinedOverlayIn)
+                .key(Double.doubleToLongBits(FunctionalStorageClientConfig.DRAWER_RENDER_THICKNESS))
+                .key(tile.isVoid() ? 1 : 0)
+                .key(tile.getDrawerOptions());
+        for (int i = 0; i < tile.getStorageUpgrades().getSlots(); i++) {
+            cache.key(tile.getStorageUpgrades().getStackInSlot(i));
+        }
+        BigInventoryHandler inventoryHandler = tile.getHandler();
+        for (int i = 0; i < tile.getDrawerType().getSlots(); i++) {
+            cache.key(inventoryHandler.getStoredStacks().get(i).getStack())
+                    .key(inventoryHandler.getAmount(i))
+                    .key(inventoryHandler.getSlotCapacity(i));
+        }
+        return cache;
+    }
+
+    /**
+     * Items whose model changes on its own, like a clock, or that are drawn by a custom renderer can't be replayed.
+     */
+    private static boolean isCacheable(DrawerTile tile) {
+        BigInventoryHandler inventoryHandler = tile.getHandler();
+        for (int i = 0; i < tile.getDrawerType().getSlots(); i++) {
+            ItemStack stack = inventoryHandler.getStoredStacks().get(i).getStack();
+            if (stack.isEmpty()) continue;
+            // overrides have to be read from the unresolved model, the resolved one (like clock_07) has none
+            if (Minecraft.getInstance().getItemRenderer().getItemModelShaper().getItemModel(stack).getOverrides() != ItemOverrides.EMPTY) return false;
+            BakedModel model = Minecraft.getInstance().getItemRenderer().getModel(stack, tile.getLevel(), null, 0);
+            if (model.isCustomRenderer()) return false;
+        }
+        return true;
+    }
+
     public static void renderUpgrades(PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLightIn, int combinedOverlayIn, ControllableDrawerTile<?> tile){
         float scale = 0.0625f;
         if (tile.getDrawerOptions().isActive(ConfigurationToolItem.ConfigurationAction.TOGGLE_UPGRADES)){
@@ -138,22 +206,22 @@ public class DrawerRenderer implements BlockEntityRenderer<DrawerTile> {
         }
     }
 
-    private void render1Slot(PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLightIn, int combinedOverlayIn, DrawerTile tile){
+    private void render1Slot(PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLightIn, int combinedOverlayIn, DrawerTile tile, DrawerRenderDetail detail){
         BigInventoryHandler inventoryHandler = (BigInventoryHandler) tile.getStorage();
         if (!inventoryHandler.getStoredStacks().get(0).getStack().isEmpty()){
             matrixStack.translate(0.5, 0.5, 0.0005f);
             ItemStack stack = inventoryHandler.getStoredStacks().get(0).getStack();
-            renderStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, stack, inventoryHandler.getStackInSlot(0).getCount(), inventoryHandler.getSlotLimit(0),0.015f, tile.getDrawerOptions(), tile.getLevel());
+            renderStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, stack, inventoryHandler.getAmount(0), inventoryHandler.getSlotCapacity(0),0.015f, tile.getDrawerOptions(), tile.getLevel(), detail);
         }
     }
 
-    private void render2Slot(PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLightIn, int combinedOverlayIn, DrawerTile tile){
+    private void render2Slot(PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLightIn, int combinedOverlayIn, DrawerTile tile, DrawerRenderDetail detail){
         BigInventoryHandler inventoryHandler = (BigInventoryHandler) tile.getStorage();
         if (!inventoryHandler.getStoredStacks().get(0).getStack().isEmpty()){
             matrixStack.pushPose();
             matrixStack.mulPoseMatrix(createTransformMatrix(new Vector3f(0.5f, 0.27f, 0.0005f), new Vector3f(0), new Vector3f(.5f, .5f, 1.0f)));
             ItemStack stack = inventoryHandler.getStoredStacks().get(0).getStack();
-            renderStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, stack, inventoryHandler.getStackInSlot(0).getCount(), inventoryHandler.getSlotLimit(0),0.02f, tile.getDrawerOptions(), tile.getLevel());
+            renderStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, stack, inventoryHandler.getAmount(0), inventoryHandler.getSlotCapacity(0),0.02f, tile.getDrawerOptions(), tile.getLevel(), detail);
             matrixStack.popPose();
         }
         if (!inventoryHandler.getStoredStacks().get(1).getStack().isEmpty()){
@@ -161,18 +229,18 @@ public class DrawerRenderer implements BlockEntityRenderer<DrawerTile> {
             matrixStack.mulPoseMatrix(createTransformMatrix(
             		new Vector3f(0.5f, 0.77f, 0.0005f), new Vector3f(0), new Vector3f(.5f, .5f, 1.0f)));
             ItemStack stack = inventoryHandler.getStoredStacks().get(1).getStack();
-            renderStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, stack, inventoryHandler.getStackInSlot(1).getCount(), inventoryHandler.getSlotLimit(1),0.02f, tile.getDrawerOptions(), tile.getLevel());
+            renderStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, stack, inventoryHandler.getAmount(1), inventoryHandler.getSlotCapacity(1),0.02f, tile.getDrawerOptions(), tile.getLevel(), detail);
             matrixStack.popPose();
         }
     }
-    private void render4Slot(PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLightIn, int combinedOverlayIn, DrawerTile tile){
+    private void render4Slot(PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLightIn, int combinedOverlayIn, DrawerTile tile, DrawerRenderDetail detail){
         BigInventoryHandler inventoryHandler = (BigInventoryHandler) tile.getStorage();
         if (!inventoryHandler.getStoredStacks().get(0).getStack().isEmpty()){ //BOTTOM RIGHT
             matrixStack.pushPose();
             matrixStack.mulPoseMatrix(createTransformMatrix(
             		new Vector3f(.75f, .27f, .0005f), new Vector3f(0), new Vector3f(.5f, .5f, 1.0f)));
             ItemStack stack = inventoryHandler.getStoredStacks().get(0).getStack();
-            renderStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, stack, inventoryHandler.getStackInSlot(0).getCount(), inventoryHandler.getSlotLimit(0),0.02f, tile.getDrawerOptions(), tile.getLevel());
+            renderStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, stack, inventoryHandler.getAmount(0), inventoryHandler.getSlotCapacity(0),0.02f, tile.getDrawerOptions(), tile.getLevel(), detail);
             matrixStack.popPose();
         }
         if (!inventoryHandler.getStoredStacks().get(1).getStack().isEmpty()){ //BOTTOM LEFT
@@ -180,7 +248,7 @@ public class DrawerRenderer implements BlockEntityRenderer<DrawerTile> {
             matrixStack.mulPoseMatrix(createTransformMatrix(
             		new Vector3f(.25f, .27f, .0005f), new Vector3f(0), new Vector3f(.5f, .5f, 1.0f)));
             ItemStack stack = inventoryHandler.getStoredStacks().get(1).getStack();
-            renderStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, stack, inventoryHandler.getStackInSlot(1).getCount(), inventoryHandler.getSlotLimit(1),0.02f, tile.getDrawerOptions(), tile.getLevel());
+            renderStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, stack, inventoryHandler.getAmount(1), inventoryHandler.getSlotCapacity(1),0.02f, tile.getDrawerOptions(), tile.getLevel(), detail);
             matrixStack.popPose();
         }
         if (!inventoryHandler.getStoredStacks().get(2).getStack().isEmpty()){ //TOP RIGHT
@@ -188,7 +256,7 @@ public class DrawerRenderer implements BlockEntityRenderer<DrawerTile> {
             matrixStack.mulPoseMatrix(createTransformMatrix(
             		new Vector3f(.75f, .77f, .0005f), new Vector3f(0), new Vector3f(.5f, .5f, 1.0f)));
             ItemStack stack = inventoryHandler.getStoredStacks().get(2).getStack();
-            renderStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, stack, inventoryHandler.getStackInSlot(2).getCount(), inventoryHandler.getSlotLimit(2),0.02f, tile.getDrawerOptions(), tile.getLevel());
+            renderStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, stack, inventoryHandler.getAmount(2), inventoryHandler.getSlotCapacity(2),0.02f, tile.getDrawerOptions(), tile.getLevel(), detail);
             matrixStack.popPose();
         }
         if (!inventoryHandler.getStoredStacks().get(3).getStack().isEmpty()){ //TOP LEFT
@@ -196,13 +264,21 @@ public class DrawerRenderer implements BlockEntityRenderer<DrawerTile> {
             matrixStack.mulPoseMatrix(createTransformMatrix(
             		new Vector3f(.25f, .77f, .0005f), new Vector3f(0), new Vector3f(.5f, .5f, 1.0f)));
             ItemStack stack = inventoryHandler.getStoredStacks().get(3).getStack();
-            renderStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, stack, inventoryHandler.getStackInSlot(3).getCount(), inventoryHandler.getSlotLimit(3),0.02f, tile.getDrawerOptions(), tile.getLevel());
+            renderStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, stack, inventoryHandler.getAmount(3), inventoryHandler.getSlotCapacity(3),0.02f, tile.getDrawerOptions(), tile.getLevel(), detail);
             matrixStack.popPose();
         }
     }
 
 
-    public static void renderStack(PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLightIn, int combinedOverlayIn, ItemStack stack, int amount, int maxAmount, float scale, ControllableDrawerTile.DrawerOptions options, Level level){
+    public static void renderStack(PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLightIn, int combinedOverlayIn, ItemStack stack, long amount, long maxAmount, float scale, ControllableDrawerTile.DrawerOptions options, Level level){
+        renderStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, stack, amount, maxAmount, scale, options, level, DrawerRenderDetail.FULL);
+    }
+
+    public static void renderStack(PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLightIn, int combinedOverlayIn, ItemStack stack, long amount, long maxAmount, float scale, ControllableDrawerTile.DrawerOptions options, Level level, DrawerRenderDetail detail){
+        if (detail == DrawerRenderDetail.ICON) {
+            if (options.isActive(ConfigurationToolItem.ConfigurationAction.TOGGLE_RENDER)) renderIcon(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, stack, level);
+            return;
+        }
         renderIndicator(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, Math.min(1, amount / (float) maxAmount), options);
 
         BakedModel model = Minecraft.getInstance().getItemRenderer().getModel(stack, Minecraft.getInstance().level, null, 0);
@@ -238,6 +314,29 @@ public class DrawerRenderer implements BlockEntityRenderer<DrawerTile> {
     }
 
 
+    /**
+     * Renders the stack as a single quad with the particle sprite of its model, facing the front of the drawer.
+     */
+    public static void renderIcon(PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLightIn, int combinedOverlayIn, ItemStack stack, Level level) {
+        BakedModel model = Minecraft.getInstance().getItemRenderer().getModel(stack, level, null, 0);
+        TextureAtlasSprite sprite = model.getParticleIcon(ModelData.EMPTY);
+        VertexConsumer builder = bufferIn.getBuffer(RenderType.entityCutout(sprite.atlasLocation()));
+        Matrix4f posMat = matrixStack.last().pose();
+        int color = Minecraft.getInstance().getItemColors().getColor(stack, 0);
+        float red = (color >> 16 & 255) / 255F;
+        float green = (color >> 8 & 255) / 255F;
+        float blue = (color & 255) / 255F;
+        float size = 0.2f;
+        float u1 = sprite.getU0();
+        float u2 = sprite.getU1();
+        float v1 = sprite.getV0();
+        float v2 = sprite.getV1();
+        builder.vertex(posMat, size, -size, 0).color(red, green, blue, 1).uv(u2, v2).overlayCoords(combinedOverlayIn).uv2(combinedLightIn).normal(0f, 0f, 1f).endVertex();
+        builder.vertex(posMat, size, size, 0).color(red, green, blue, 1).uv(u2, v1).overlayCoords(combinedOverlayIn).uv2(combinedLightIn).normal(0f, 0f, 1f).endVertex();
+        builder.vertex(posMat, -size, size, 0).color(red, green, blue, 1).uv(u1, v1).overlayCoords(combinedOverlayIn).uv2(combinedLightIn).normal(0f, 0f, 1f).endVertex();
+        builder.vertex(posMat, -size, -size, 0).color(red, green, blue, 1).uv(u1, v2).overlayCoords(combinedOverlayIn).uv2(combinedLightIn).normal(0f, 0f, 1f).endVertex();
+    }
+
     /* Thanks Mekanism */
     public static void renderText(PoseStack matrix, MultiBufferSource renderer, int overlayLight, Component text, Direction side, float maxScale) {
 
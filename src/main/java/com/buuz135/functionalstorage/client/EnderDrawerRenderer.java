@@ -24,7 +24,8 @@ public class EnderDrawerRenderer implements BlockEntityRenderer<EnderDrawerTile>
 
     @Override
     public void render(EnderDrawerTile tile, float partialTicks, PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLightIn, int combinedOverlayIn) {
-        if (Minecraft.getInstance().player != null && !tile.getBlockPos().closerThan(Minecraft.getInstance().player.getOnPos(), FunctionalStorageClientConfig.DRAWER_RENDER_RANGE)){
+        DrawerRenderDetail detail = DrawerRenderDetail.of(tile);
+        if (detail == DrawerRenderDetail.NONE) {
             return;
         }
         matrixStack.pushPose();
@@ -52,8 +53,8 @@ public class EnderDrawerRenderer implements BlockEntityRenderer<EnderDrawerTile>
         
         matrixStack.translate(0,0,-0.5/16D);
         combinedLightIn = LevelRenderer.getLightColor(tile.getLevel(), tile.getBlockPos().relative(facing));
-        renderUpgrades(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, tile);
-        render1Slot(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, tile);
+        if (detail == DrawerRenderDetail.FULL) renderUpgrades(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, tile);
+        render1Slot(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, tile, detail);
         matrixStack.popPose();
     }
 
@@ -83,12 +84,12 @@ public class EnderDrawerRenderer implements BlockEntityRenderer<EnderDrawerTile>
         }
     }
 
-    private void render1Slot(PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLightIn, int combinedOverlayIn, EnderDrawerTile tile){
+    private void render1Slot(PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLightIn, int combinedOverlayIn, EnderDrawerTile tile, DrawerRenderDetail detail){
         EnderInventoryHandler inventoryHandler =  EnderSavedData.getInstance(tile.getLevel()).getFrequency(tile.getFrequency());
         if (!inventoryHandler.getStoredStacks().get(0).getStack().isEmpty()){
             matrixStack.translate(0.5, 0.5, 0.0005f);
             ItemStack stack = inventoryHandler.getStoredStacks().get(0).getStack();
-            DrawerRenderer.renderStack(matrixStack,  bufferIn, combinedLightIn, combinedOverlayIn, stack, inventoryHandler.getStoredStacks().get(0).getAmount(), inventoryHandler.getSlotLimit(0), 0.015f, tile.getDrawerOptions(), tile.getLevel());
+            DrawerRenderer.renderStack(matrixStack,  bufferIn, combinedLightIn, combinedOverlayIn, stack, inventoryHandler.getStoredStacks().get(0).getAmount(), inventoryHandler.getSlotLimit(0), 0.015f, tile.getDrawerOptions(), tile.getLevel(), detail);
         }
     }
 
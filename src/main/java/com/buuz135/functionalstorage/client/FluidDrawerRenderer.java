@@ -29,6 +29,13 @@ import org.joml.Matrix4f;
 public class FluidDrawerRenderer implements BlockEntityRenderer<FluidDrawerTile> {
 
     public static void renderFluidStack(PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLight, int combinedOverlay, FluidStack stack, int amount, int maxAmount, float scale, ControllableDrawerTile.DrawerOptions options, AABB bounds, boolean halfText, boolean isSmallBar) {
+        renderFluidStack(matrixStack, bufferIn, combinedLight, combinedOverlay, stack, amount, maxAmount, scale, options, bounds, halfText, isSmallBar, DrawerRenderDetail.FULL);
+    }
+
+    /**
+     * At {@link DrawerRenderDetail#ICON} only the front of the fluid is rendered, without its amount and indicator.
+     */
+    public static void renderFluidStack(PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLight, int combinedOverlay, FluidStack stack, int amount, int maxAmount, float scale, ControllableDrawerTile.DrawerOptions options, AABB bounds, boolean halfText, boolean isSmallBar, DrawerRenderDetail detail) {
         matrixStack.pushPose();
         if (options.isActive(ConfigurationToolItem.ConfigurationAction.TOGGLE_RENDER)){
             IClientFluidTypeExtensions renderProperties = IClientFluidTypeExtensions.of(stack.getFluid());
@@ -60,7 +67,7 @@ public class FluidDrawerRenderer implements BlockEntityRenderer<FluidDrawerTile>
 
             //TOP
 
-            if (true) {
+            if (detail == DrawerRenderDetail.FULL) {
                 float u1 = still.getU(bx1);
                 float u2 = still.getU(bx2);
                 float v1 = still.getV(bz1);
@@ -85,6 +92,7 @@ public class FluidDrawerRenderer implements BlockEntityRenderer<FluidDrawerTile>
 
 
         matrixStack.popPose();
+        if (detail != DrawerRenderDetail.FULL) return;
         if (options.isActive(ConfigurationToolItem.ConfigurationAction.TOGGLE_NUMBERS)) {
             matrixStack.pushPose();
             matrixStack.translate(0.5, 0.84, 0.97);
@@ -114,7 +122,8 @@ public class FluidDrawerRenderer implements BlockEntityRenderer<FluidDrawerTile>
 
     @Override
     public void render(FluidDrawerTile tile, float partialTicks, PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLightIn, int combinedOverlayIn) {
-        if (Minecraft.getInstance().player != null && !tile.getBlockPos().closerThan(Minecraft.getInstance().player.getOnPos(), FunctionalStorageClientConfig.DRAWER_RENDER_RANGE)) {
+        DrawerRenderDetail detail = DrawerRenderDetail.of(tile);
+        if (detail == DrawerRenderDetail.NONE) {
             return;
         }
         matrixStack.pushPose();
@@ -138,19 +147,19 @@ public class FluidDrawerRenderer implements BlockEntityRenderer<FluidDrawerTile>
         combinedLightIn = LevelRenderer.getLightColor(tile.getLevel(), tile.getBlockPos().relative(facing));
 
         if (tile.getDrawerType() == FunctionalStorage.DrawerType.X_1)
-            render1Slot(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, tile);
+            render1Slot(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, tile, detail);
         if (tile.getDrawerType() == FunctionalStorage.DrawerType.X_2)
-            render2Slot(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, tile);
+            render2Slot(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, tile, detail);
         if (tile.getDrawerType() == FunctionalStorage.DrawerType.X_4)
-            render4Slot(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, tile);
+            render4Slot(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, tile, detail);
         matrixStack.pushPose();
         matrixStack.translate(0, 0, 0.9688);
-        DrawerRenderer.renderUpgrades(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, tile);
+        if (detail == DrawerRenderDetail.FULL) DrawerRenderer.renderUpgrades(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, tile);
         matrixStack.popPose();
         matrixStack.popPose();
     }
 
-    private void render1Slot(PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLightIn, int combinedOverlayIn, FluidDrawerTile tile) {
+    private void render1Slot(PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLightIn, int combinedOverlayIn, FluidDrawerTile tile, DrawerRenderDetail detail) {
         BigFluidHandler inventoryHandler = tile.getFluidHandler();
         if (!inventoryHandler.getFluidInTank(0).isEmpty() || (tile.isLocked() && !inventoryHandler.getFilterStack()[0].isEmpty())) {
             FluidStack fluidStack = inventoryHandler.getFluidInTank(0);
@@ -160,12 +169,12 @@ public class FluidDrawerRenderer implements BlockEntityRenderer<FluidDrawerTile>
                 displayAmount = 0;
             }
             AABB bounds = new AABB(1 / 16D, 1.25 / 16D, 1 / 16D, 15 / 16D, 1.25 / 16D + (fluidStack.getAmount() / (double) inventoryHandler.getTankCapacity(0)) * (12.5 / 16D), 15 / 16D);
-            renderFluidStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, fluidStack, displayAmount, inventoryHandler.getTankCapacity(0), 0.007f, tile.getDrawerOptions(), bounds, false, false);
+            renderFluidStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, fluidStack, displayAmount, inventoryHandler.getTankCapacity(0), 0.007f, tile.getDrawerOptions(), bounds, false, false, detail);
         }
 
     }
 
-    private void render2Slot(PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLightIn, int combinedOverlayIn, FluidDrawerTile tile) {
+    private void render2Slot(PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLightIn, int combinedOverlayIn, FluidDrawerTile tile, DrawerRenderDetail detail) {
         BigFluidHandler inventoryHandler = tile.getFluidHandler();
         if (!inventoryHandler.getFluidInTank(0).isEmpty() || (tile.isLocked() && !inventoryHandler.getFilterStack()[0].isEmpty())) {
             FluidStack fluidStack = inventoryHandler.getFluidInTank(0);
@@ -175,7 +184,7 @@ public class FluidDrawerRenderer implements BlockEntityRenderer<FluidDrawerTile>
                 displayAmount = 0;
             }
             AABB bounds = new AABB(1 / 16D, 1.25 / 16D, 1 / 16D, 15 / 16D, 1.25 / 16D + (fluidStack.getAmount() / (double) inventoryHandler.getTankCapacity(0)) * (5.5 / 16D), 15 / 16D);
-            renderFluidStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, fluidStack, displayAmount, inventoryHandler.getTankCapacity(0), 0.007f, tile.getDrawerOptions(), bounds, false, true);
+            renderFluidStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, fluidStack, displayAmount, inventoryHandler.getTankCapacity(0), 0.007f, tile.getDrawerOptions(), bounds, false, true, detail);
         }
         if (!inventoryHandler.getFluidInTank(1).isEmpty() || (tile.isLocked() && !inventoryHandler.getFilterStack()[1].isEmpty())) {
             matrixStack.pushPose();
@@ -187,12 +196,12 @@ public class FluidDrawerRenderer implements BlockEntityRenderer<FluidDrawerTile>
                 displayAmount = 0;
             }
             AABB bounds = new AABB(1 / 16D, 1.25 / 16D, 1 / 16D, 15 / 16D, 1.25 / 16D + (fluidStack.getAmount() / (double) inventoryHandler.getTankCapacity(1)) * (5.5 / 16D), 15 / 16D);
-            renderFluidStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, fluidStack, displayAmount, inventoryHandler.getTankCapacity(1), 0.007f, tile.getDrawerOptions(), bounds, false, true);
+            renderFluidStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, fluidStack, displayAmount, inventoryHandler.getTankCapacity(1), 0.007f, tile.getDrawerOptions(), bounds, false, true, detail);
             matrixStack.popPose();
         }
     }
 
-    private void render4Slot(PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLightIn, int combinedOverlayIn, FluidDrawerTile tile) {
+    private void render4Slot(PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLightIn, int combinedOverlayIn, FluidDrawerTile tile, DrawerRenderDetail detail) {
         BigFluidHandler inventoryHandler = tile.getFluidHandler();
         if (!inventoryHandler.getFluidInTank(0).isEmpty() || (tile.isLocked() && !inventoryHandler.getFilterStack()[0].isEmpty())) {
             matrixStack.pushPose();
@@ -204,7 +213,7 @@ public class FluidDrawerRenderer implements BlockEntityRenderer<FluidDrawerTile>
                 displayAmount = 0;
             }
             AABB bounds = new AABB(1 / 16D, 1.25 / 16D, 1 / 16D, 8 / 16D, 1.25 / 16D + (fluidStack.getAmount() / (double) inventoryHandler.getTankCapacity(0)) * (5.5 / 16D), 15 / 16D);
-            renderFluidStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, fluidStack, displayAmount, inventoryHandler.getTankCapacity(0), 0.007f, tile.getDrawerOptions(), bounds, true, true);
+            renderFluidStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, fluidStack, displayAmount, inventoryHandler.getTankCapacity(0), 0.007f, tile.getDrawerOptions(), bounds, true, true, detail);
             matrixStack.popPose();
         }
         if (!inventoryHandler.getFluidInTank(1).isEmpty() || (tile.isLocked() && !inventoryHandler.getFilterStack()[1].isEmpty())) {
@@ -216,7 +225,7 @@ public class FluidDrawerRenderer implements BlockEntityRenderer<FluidDrawerTile>
                 displayAmount = 0;
             }
             AABB bounds = new AABB(1 / 16D, 1.25 / 16D, 1 / 16D, 8 / 16D, 1.25 / 16D + (fluidStack.getAmount() / (double) inventoryHandler.getTankCapacity(1)) * (5.5 / 16D), 15 / 16D);
-            renderFluidStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, fluidStack, displayAmount, inventoryHandler.getTankCapacity(1), 0.007f, tile.getDrawerOptions(), bounds, true, true);
+            renderFluidStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, fluidStack, displayAmount, inventoryHandler.getTankCapacity(1), 0.007f, tile.getDrawerOptions(), bounds, true, true, detail);
             matrixStack.popPose();
         }
         if (!inventoryHandler.getFluidInTank(2).isEmpty() || (tile.isLocked() && !inventoryHandler.getFilterStack()[2].isEmpty())) {
@@ -229,7 +238,7 @@ public class FluidDrawerRenderer implements BlockEntityRenderer<FluidDrawerTile>
                 displayAmount = 0;
             }
             AABB bounds = new AABB(1 / 16D, 1.25 / 16D, 1 / 16D, 8 / 16D, 1.25 / 16D + (fluidStack.getAmount() / (double) inventoryHandler.getTankCapacity(2)) * (5.5 / 16D), 15 / 16D);
-            renderFluidStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, fluidStack, displayAmount, inventoryHandler.getTankCapacity(2), 0.007f, tile.getDrawerOptions(), bounds, true, true);
+            renderFluidStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, fluidStack, displayAmount, inventoryHandler.getTankCapacity(2), 0.007f, tile.getDrawerOptions(), bounds, true, true, detail);
             matrixStack.popPose();
         }
         if (!inventoryHandler.getFluidInTank(3).isEmpty() || (tile.isLocked() && !inventoryHandler.getFilterStack()[3].isEmpty())) {
@@ -242,7 +251,7 @@ public class FluidDrawerRenderer implements BlockEntityRenderer<FluidDrawerTile>
                 displayAmount = 0;
             }
             AABB bounds = new AABB(1 / 16D, 1.25 / 16D, 1 / 16D, 8 / 16D, 1.25 / 16D + (fluidStack.getAmount() / (double) inventoryHandler.getTankCapacity(3)) * (5.5 / 16D), 15 / 16D);
-            renderFluidStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, fluidStack, displayAmount, inventoryHandler.getTankCapacity(3), 0.007f, tile.getDrawerOptions(), bounds, true, true);
+            renderFluidStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, fluidStack, displayAmount, inventoryHandler.getTankCapacity(3), 0.007f, tile.getDrawerOptions(), bounds, true, true, detail);
             matrixStack.popPose();
         }
     }
@@ -9,8 +9,15 @@ public class FunctionalStorageClientConfig {
     @ConfigVal(comment = "Drawer content render range in blocks")
     @ConfigVal.InRangeInt(min = 1)
     public static int DRAWER_RENDER_RANGE = 16;
-    
+
+    @ConfigVal(comment = "Range in blocks in which drawer contents past the render range are still rendered as flat icons without their amount, set it lower than the render range to disable it")
+    @ConfigVal.InRangeInt(min = 1)
+    public static int DRAWER_ICON_RENDER_RANGE = 48;
+
     @ConfigVal(comment = "The thickness of 3D item/block displays")
     @ConfigVal.InRangeDouble(min = 0.05, max = 0.75)
     public static double DRAWER_RENDER_THICKNESS = 0.125;
+
+    @ConfigVal(comment = "Keeps the rendered contents of drawers and only renders them again when their contents, options or lighting change")
+    public static boolean DRAWER_RENDER_CACHE = true;
 }
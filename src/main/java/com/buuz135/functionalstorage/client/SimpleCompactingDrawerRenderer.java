@@ -2,7 +2,6 @@ package com.buuz135.functionalstorage.client;
 
 import com.buuz135.functionalstorage.block.tile.SimpleCompactingDrawerTile;
 import com.mojang.blaze3d.vertex.PoseStack;
-import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.LevelRenderer;
 import net.minecraft.client.renderer.MultiBufferSource;
 import net.minecraft.client.renderer.blockentity.BlockEntityRenderer;
@@ -16,7 +15,8 @@ public class SimpleCompactingDrawerRenderer implements BlockEntityRenderer<Simpl
 
     @Override
     public void render(SimpleCompactingDrawerTile tile, float partialTicks, PoseStack matrixStack, MultiBufferSource bufferIn, int combinedLightIn, int combinedOverlayIn) {
-        if (Minecraft.getInstance().player != null && !tile.getBlockPos().closerThan(Minecraft.getInstance().player.getOnPos(), FunctionalStorageClientConfig.DRAWER_RENDER_RANGE)) {
+        DrawerRenderDetail detail = DrawerRenderDetail.of(tile);
+        if (detail == DrawerRenderDetail.NONE) {
             return;
         }
         matrixStack.pushPose();
@@ -41,13 +41,13 @@ public class SimpleCompactingDrawerRenderer implements BlockEntityRenderer<Simpl
 
         matrixStack.translate(0, 0, -0.5 / 16D);
         combinedLightIn = LevelRenderer.getLightColor(tile.getLevel(), tile.getBlockPos().relative(facing));
-        DrawerRenderer.renderUpgrades(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, tile);
+        if (detail == DrawerRenderDetail.FULL) DrawerRenderer.renderUpgrades(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, tile);
         ItemStack stack = tile.getHandler().getResultList().get(0).getResult();
         if (!stack.isEmpty()) {
             matrixStack.pushPose();
             matrixStack.mulPoseMatrix(createTransformMatrix(
                     new Vector3f(0.5f, 0.27f, 0.0005f), new Vector3f(0), new Vector3f(.5f, .5f, 1.0f)));
-            DrawerRenderer.renderStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, stack, tile.getHandler().getStackInSlot(0).getCount(),tile.getHandler().getSlotLimit(0), 0.02f, tile.getDrawerOptions(), tile.getLevel());
+            DrawerRenderer.renderStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, stack, tile.getHandler().getAmount(0),tile.getHandler().getSlotCapacity(0), 0.02f, tile.getDrawerOptions(), tile.getLevel(), detail);
             matrixStack.popPose();
         }
         stack = tile.getHandler().getResultList().get(1).getResult();
@@ -55,7 +55,7 @@ public class SimpleCompactingDrawerRenderer implements BlockEntityRenderer<Simpl
             matrixStack.pushPose();
             matrixStack.mulPoseMatrix(createTransformMatrix(
                     new Vector3f(0.5f, 0.77f, 0.0005f), new Vector3f(0), new Vector3f(.5f, .5f, 1.0f)));
-            DrawerRenderer.renderStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, stack, tile.getHandler().getStackInSlot(1).getCount(), tile.getHandler().getSlotLimit(1),0.02f, tile.getDrawerOptions(), tile.getLevel());
+            DrawerRenderer.renderStack(matrixStack, bufferIn, combinedLightIn, combinedOverlayIn, stack, tile.getHandler().getAmount(1), tile.getHandler().getSlotCapacity(1),0.02f, tile.getDrawerOptions(), tile.getLevel(), detail);
             matrixStack.popPose();
         }
         matrixStack.popPose();
@@ -3,6 +3,8 @@ package com.buuz135.functionalstorage.client.loader;
 import com.buuz135.functionalstorage.FunctionalStorage;
 import com.buuz135.functionalstorage.block.FramedDrawerBlock;
 import com.buuz135.functionalstorage.client.model.FramedDrawerModelData;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.gson.JsonDeserializationContext;
@@ -21,7 +23,6 @@ import net.minecraft.client.renderer.texture.TextureAtlasSprite;
 import net.minecraft.client.resources.model.*;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
-import net.minecraft.core.Vec3i;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.util.RandomSource;
 import net.minecraft.world.inventory.InventoryMenu;
@@ -40,19 +41,14 @@ import net.minecraftforge.client.model.geometry.IGeometryLoader;
 import net.minecraftforge.client.model.geometry.IUnbakedGeometry;
 import net.minecraftforge.common.util.ConcatenatedListView;
 import net.minecraftforge.registries.ForgeRegistries;
-import org.apache.commons.lang3.tuple.ImmutableTriple;
-import org.apache.commons.lang3.tuple.Triple;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.joml.Vector3f;
 
 import java.util.*;
 import java.util.function.Function;
 
-import static com.buuz135.functionalstorage.client.loader.FramedModel.Baked.getQuadsUsingShape;
-
 /**
  * A Custom Model for Framed Drawers. <br>
  * Based on {@link net.minecraftforge.client.model.CompositeModel} from Forge. <br>
@@ -60,6 +56,7 @@ import static com.buuz135.functionalstorage.client.loader.FramedModel.Baked.getQ
  */
 public class FramedModel implements IUnbakedGeometry<FramedModel> {
     private static final Logger LOGGER = LogManager.getLogger();
+    private static final int FRAMED_QUAD_CACHE_SIZE = 512;
 
     private final ImmutableMap<String, BlockModel> children;
     private final ImmutableList<String> itemPasses;
@@ -130,6 +127,7 @@ public class FramedModel implements IUnbakedGeometry<FramedModel> {
         private final ItemTransforms transforms;
         private final ImmutableMap<String, BakedModel> children;
         private final ImmutableList<BakedModel> itemPasses;
+        private final Cache<FramedQuadKey, List<BakedQuad>> framedQuads = CacheBuilder.newBuilder().maximumSize(FRAMED_QUAD_CACHE_SIZE).build();
 
         public Baked(boolean isGui3d, boolean isSideLit, boolean isAmbientOcclusion, TextureAtlasSprite particle, ItemTransforms transforms, ItemOverrides overrides, ImmutableMap<String, BakedModel> children, ImmutableList<BakedModel> itemPasses)
         {
@@ -156,7 +154,7 @@ public class FramedModel implements IUnbakedGeometry<FramedModel> {
                     List<BakedQuad> quads = entry.getValue().getQuads(state, side, rand, Data.resolve(data, entry.getKey()), renderType);
                     if (framedDrawerModelData != null && framedDrawerModelData.getDesign().containsKey(entry.getKey())) {
                         Item item = framedDrawerModelData.getDesign().get(entry.getKey());
-                        quadLists.add(getQuadsUsingShape(item, quads, side, rand, renderType));
+                        quadLists.add(getFramedQuads(entry.getKey(), item, quads, side, rand, renderType));
                     } else {
                         quadLists.add(quads);
                     }
@@ -165,158 +163,118 @@ public class FramedModel implements IUnbakedGeometry<FramedModel> {
             return ConcatenatedListView.of(quadLists);
         }
 
+        /**
+         * Retextured quads of a child part, cached for this model since they only depend on the part, the frame item, the
+         * side and the render type.
+         */
+        protected List<BakedQuad> getFramedQuads(String part, @Nullable Item frameItem, List<BakedQuad> shape, @Nullable Direction side, RandomSource rand, @Nullable RenderType renderType) {
+            FramedQuadKey key = new FramedQuadKey(part, frameItem, side, renderType);
+            List<BakedQuad> quads = framedQuads.getIfPresent(key);
+            if (quads == null) {
+                quads = List.copyOf(getQuadsUsingShape(frameItem, shape, side, rand, renderType));
+                framedQuads.put(key, quads);
+            }
+            return quads;
+        }
+
         protected static List<BakedQuad> getQuadsUsingShape(@Nullable Item frameItem, List<BakedQuad> shape, @Nullable Direction side, RandomSource rand, @Nullable RenderType renderType) {
             if (frameItem instanceof BlockItem blockItem) {
                 BlockState state1 = blockItem.getBlock().defaultBlockState();
                 BakedModel model = Minecraft.getInstance().getBlockRenderer().getBlockModel(state1);
-                Optional<List<Triple<TextureAtlasSprite, Integer, int[]>>> spriteOptional = getSpriteData(model, state1, side, rand, null, renderType);
+                Optional<List<FrameFace>> spriteOptional = getSpriteData(model, state1, side, rand, null, renderType);
+                int lightEmission = state1.getLightEmission(Minecraft.getInstance().level, BlockPos.ZERO);
                 List<BakedQuad> returnQuads = new ArrayList<>();
                 for (BakedQuad shapeQuad : shape) {
-                    List<Triple<TextureAtlasSprite, Integer, int[]>> spriteData = spriteOptional.orElse(getSpriteFromModel(shapeQuad, model, state1,null));
-                    returnQuads.addAll(framedQuad(shapeQuad, spriteData, state1.getLightEmission(Minecraft.getInstance().level, BlockPos.ZERO)));
+                    List<FrameFace> spriteData = spriteOptional.isPresent() ? spriteOptional.get() : getSpriteFromModel(shapeQuad, model, state1, null);
+                    returnQuads.addAll(framedQuad(shapeQuad, spriteData, lightEmission));
                 }
                 return returnQuads;
             }
             return List.of();
         }
 
-        private static Optional<List<Triple<TextureAtlasSprite, Integer, int[]>>> getSpriteData(BakedModel model, BlockState state, @Nullable Direction side, RandomSource rand, @Nullable Direction rotation, @Nullable RenderType renderType) {
+        private static Optional<List<FrameFace>> getSpriteData(BakedModel model, BlockState state, @Nullable Direction side, RandomSource rand, @Nullable Direction rotation, @Nullable RenderType renderType) {
             List<BakedQuad> quads = model.getQuads(state, side, rand, ModelData.EMPTY, renderType);
-            List<Float> positions = new ArrayList<>();
-            List<Triple<TextureAtlasSprite, Integer, int[]>> modelData = new ArrayList<>();
-            if (!quads.isEmpty()) {
-                for (BakedQuad bakedQuad: quads) {
-                    float[] position = unpackVertices(bakedQuad.getVertices(), 0, IQuadTransformer.POSITION, 3);
-                    positions.add(getPositionFromDirection(position, side));
-                }
-                List<Integer> index = getMinMaxPosition(positions, side);
-                for (int i = 0; i < index.size(); i++) {
-                    int[] lights = new int[4];
-                    for (int j=0; j<4 ; j++) {
-                        lights[j] = quads.get(i).getVertices()[IQuadTransformer.UV2 + j * IQuadTransformer.STRIDE];
-                    }
-                    int tint = quads.get(i).isTinted() ? Minecraft.getInstance().getBlockColors().getColor(state, Minecraft.getInstance().level, null, quads.get(i).getTintIndex()) : -1;
-                    Triple<TextureAtlasSprite, Integer, int[]> triple = new ImmutableTriple<>(quads.get(i).getSprite(), tint, lights);
-                    modelData.add(triple);
-                }
-            }
-            return quads.isEmpty() ? Optional.empty() : Optional.of(modelData);
+            return quads.isEmpty() ? Optional.empty() : Optional.of(getOuterFaces(quads, state, side));
         }
 
-        private static float getPositionFromDirection(float[] position, Direction side) {
-            Vec3i normal = new Vec3i(0,0,0);
-            if (side != null) {
-                normal = side.getNormal();
+        protected static List<FrameFace> getSpriteFromModel(BakedQuad shape, BakedModel model, BlockState state, Direction rotation) {
+            List<BakedQuad> quads = model.getQuads(state, shape.getDirection(), RandomSource.create());
+            if (quads.isEmpty()) {
+                return List.of(new FrameFace(Minecraft.getInstance().getTextureAtlas(InventoryMenu.BLOCK_ATLAS).apply(MissingTextureAtlasSprite.getLocation()), -1, new int[] {0,0,0,0}));
             }
-            Vector3f vector3f = new Vector3f(position[0] * normal.getX(), position[1] * normal.getY(), position[2] * normal.getZ()); // making a vector with only 1 element at the normal
-            return (float) Math.sqrt(vector3f.dot(vector3f));
+            return getOuterFaces(quads, state, shape.getDirection());
         }
 
-        private static List<Integer> getMinMaxPosition(List<Float> positions, Direction side) {
-            List<Integer> index = new ArrayList<>();
-            float minMax = side != null && side.getAxisDirection() == Direction.AxisDirection.POSITIVE ? Collections.max(positions) : Collections.min(positions);
-            for (int i = 0; i < positions.size(); i++) {
-                if (Math.abs(positions.get(i) - minMax) < 0.1) {
-                    index.add(i);
+        /**
+         * The faces of the frame model that are the furthest out on the given side.
+         */
+        private static List<FrameFace> getOuterFaces(List<BakedQuad> quads, BlockState state, @Nullable Direction side) {
+            boolean positive = side != null && side.getAxisDirection() == Direction.AxisDirection.POSITIVE;
+            float[] positions = new float[quads.size()];
+            float minMax = positive ? -Float.MAX_VALUE : Float.MAX_VALUE;
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = getPositionFromDirection(quads.get(i).getVertices(), side);
+                minMax = positive ? Math.max(minMax, positions[i]) : Math.min(minMax, positions[i]);
+            }
+            List<FrameFace> faces = new ArrayList<>();
+            for (int i = 0; i < positions.length; i++) {
+                if (Math.abs(positions[i] - minMax) >= 0.1) continue;
+                BakedQuad quad = quads.get(i);
+                int[] lights = new int[4];
+                for (int j = 0; j < 4; j++) {
+                    lights[j] = quad.getVertices()[IQuadTransformer.UV2 + j * IQuadTransformer.STRIDE];
                 }
+                int tint = quad.isTinted() ? Minecraft.getInstance().getBlockColors().getColor(state, Minecraft.getInstance().level, null, quad.getTintIndex()) : -1;
+                faces.add(new FrameFace(quad.getSprite(), tint, lights));
             }
-            return index;
+            return faces;
         }
 
-        protected static List<Triple<TextureAtlasSprite, Integer, int[]>> getSpriteFromModel(BakedQuad shape, BakedModel model, BlockState state, Direction rotation) {
-            List<BakedQuad> quads = model.getQuads(state, shape.getDirection(), RandomSource.create());
-            List<Float> positions = new ArrayList<>();
-            List<Triple<TextureAtlasSprite, Integer, int[]>> modelData = new ArrayList<>();
-            if (!quads.isEmpty()) {
-                for (BakedQuad bakedQuad: quads) {
-                    float[] position = unpackVertices(bakedQuad.getVertices(), 0, IQuadTransformer.POSITION, 3);
-                    positions.add(getPositionFromDirection(position, shape.getDirection()));
-
-                }
-                List<Integer> index = getMinMaxPosition(positions, shape.getDirection());
-                for (int i = 0; i < index.size(); i++) {
-                    int[] lights = new int[4];
-                    for (int j=0; j<4; j++) {
-                        lights[j] = quads.get(i).getVertices()[IQuadTransformer.UV2 + j * IQuadTransformer.STRIDE];
-                    }
-                    int tint = quads.get(i).isTinted() ? Minecraft.getInstance().getBlockColors().getColor(state, Minecraft.getInstance().level, null, quads.get(i).getTintIndex()) : -1;
-                    Triple<TextureAtlasSprite, Integer, int[]> triple = new ImmutableTriple<>(quads.get(i).getSprite(), tint, lights);
-                    modelData.add(triple);
-                }
-            }
-            return quads.isEmpty() ? List.of(Triple.of(Minecraft.getInstance().getTextureAtlas(InventoryMenu.BLOCK_ATLAS).apply(MissingTextureAtlasSprite.getLocation()), -1, new int[] {0,0,0,0})) : modelData;
+        /**
+         * Distance of the first vertex of the quad from the origin along the axis of the side.
+         */
+        private static float getPositionFromDirection(int[] vertices, @Nullable Direction side) {
+            if (side == null) return 0;
+            return Math.abs(Float.intBitsToFloat(vertices[IQuadTransformer.POSITION + side.getAxis().ordinal()]));
         }
 
-        protected static List<BakedQuad> framedQuad(BakedQuad toCopy, List<Triple<TextureAtlasSprite, Integer, int[]>> modelData, int lightEmission) {
+        /**
+         * Copies the quad once per face of the frame, moving its uvs to the sprite of the face and applying its tint and
+         * light to the packed vertex data in place.
+         */
+        protected static List<BakedQuad> framedQuad(BakedQuad toCopy, List<FrameFace> faces, int lightEmission) {
             lightEmission = LightTexture.pack(lightEmission, lightEmission);
-            List<BakedQuad> quads = new ArrayList<>();
-            for (int j = 0; j < modelData.size(); j++) {
-                BakedQuad copied = new BakedQuad(Arrays.copyOf(toCopy.getVertices(), 32), -1, toCopy.getDirection(), modelData.get(j).getLeft(), toCopy.isShade());
-
+            TextureAtlasSprite shapeSprite = toCopy.getSprite();
+            List<BakedQuad> quads = new ArrayList<>(faces.size());
+            for (FrameFace face : faces) {
+                int[] vertices = Arrays.copyOf(toCopy.getVertices(), 32);
+                float uOffset = face.sprite().getU0() - shapeSprite.getU0();
+                float vOffset = face.sprite().getV0() - shapeSprite.getV0();
                 for (int i = 0; i < 4; i++) {
-                    float[] uv0 = unpackVertices(copied.getVertices(), i, IQuadTransformer.UV0, 2);
-                    uv0[0] = (uv0[0] - toCopy.getSprite().getU0()) * toCopy.getSprite().contents().width() / toCopy.getSprite().contents().width() + modelData.get(j).getLeft().getU0();
-                    uv0[1] = (uv0[1] - toCopy.getSprite().getV0()) * toCopy.getSprite().contents().height() / toCopy.getSprite().contents().height() + modelData.get(j).getLeft().getV0();
-                    int[] packedTextureData = packUV(uv0[0], uv0[1]);
-                    copied.getVertices()[IQuadTransformer.UV0 + i * IQuadTransformer.STRIDE] = packedTextureData[0];
-                    copied.getVertices()[IQuadTransformer.UV0 + 1 + i * IQuadTransformer.STRIDE] = packedTextureData[1];
-
-                    if (modelData.get(j).getMiddle() != -1) {
-                        int[] colors = getColorARGB(copied.getVertices(), i);
-                        int[] color1 = getColorARGB(modelData.get(j).getMiddle());
-                        colors[0] = (colors[0] * color1[0]) / 255;
-                        colors[1] = (colors[1] * color1[1]) / 255;
-                        colors[2] = (colors[2] * color1[2]) / 255;
-                        colors[3] = (colors[3] * color1[3]) / 255;
-                        int packedColor = packColor( colors[3], colors[2], colors[1], colors[0]);
-                        copied.getVertices()[IQuadTransformer.COLOR + i * IQuadTransformer.STRIDE] = packedColor;
+                    int offset = i * IQuadTransformer.STRIDE;
+                    vertices[offset + IQuadTransformer.UV0] = Float.floatToRawIntBits(Float.intBitsToFloat(vertices[offset + IQuadTransformer.UV0]) + uOffset);
+                    vertices[offset + IQuadTransformer.UV0 + 1] = Float.floatToRawIntBits(Float.intBitsToFloat(vertices[offset + IQuadTransformer.UV0 + 1]) + vOffset);
+                    if (face.tint() != -1) {
+                        vertices[offset + IQuadTransformer.COLOR] = tintColor(vertices[offset + IQuadTransformer.COLOR], face.tint());
                     }
-
-                    copied.getVertices()[IQuadTransformer.UV2 + i * IQuadTransformer.STRIDE] = Math.max(modelData.get(j).getRight()[i], lightEmission);
-
+                    vertices[offset + IQuadTransformer.UV2] = Math.max(face.lights()[i], lightEmission);
                 }
-                quads.add(copied);
+                quads.add(new BakedQuad(vertices, -1, toCopy.getDirection(), face.sprite(), toCopy.isShade()));
             }
             return quads;
         }
 
-        private static float[] unpackVertices(int[] vertices, int vertexIndex, int position, int count) {
-            float[] floats = new float[count];
-            int startIndex = vertexIndex * IQuadTransformer.STRIDE + position;
-            for (int i = 0; i < count; i++) {
-                floats[i] = Float.intBitsToFloat(vertices[startIndex + i]);
-            }
-            return floats;
-        }
-
-        private static int[] getColorARGB(int[] vertices, int vertexIndex) {
-            int color = vertices[IQuadTransformer.STRIDE * vertexIndex + IQuadTransformer.COLOR];
-            return getColorARGB(color);
-        }
-
-        private static int[] getColorARGB(int color) {
-            int[] argb = new int[4];
-            argb[0] = color >> 24 & 0xFF;
-            argb[1] = color >> 16 & 0xFF;
-            argb[2] = color >> 8 & 0xFF;
-            argb[3] = color & 0xFF;
-            return argb;
-        }
-
-        private static int[] getUV2(int[] vertices, int vertexIndex) {
-            int[] light = new int[2];
-            int uv2 = vertices[IQuadTransformer.STRIDE * vertexIndex + IQuadTransformer.UV2];
-            light[0] = (uv2 & 0xFFFF) >> 4;
-            light[1] = uv2 >> 20 & '\uffff';
-            return light;
-        }
-
-
-        public static int[] packUV(float u, float v) {
-            int[] quadData = new int[2];
-            quadData[0] = Float.floatToRawIntBits(u);
-            quadData[1] = Float.floatToRawIntBits(v);
-            return quadData;
+        /**
+         * Multiplies each byte of the packed vertex color by the matching byte of the ARGB tint, moving red and blue so
+         * the result is in the ABGR order of the vertex data.
+         */
+        private static int tintColor(int color, int tint) {
+            int first = (color & 0xFF) * (tint & 0xFF) / 255;
+            int second = (color >> 8 & 0xFF) * (tint >> 8 & 0xFF) / 255;
+            int third = (color >> 16 & 0xFF) * (tint >> 16 & 0xFF) / 255;
+            int fourth = (color >>> 24) * (tint >>> 24) / 255;
+            return packColor(first, second, third, fourth);
         }
 
         public static int packColor(int r, int g, int b, int a) {
@@ -405,6 +363,15 @@ public class FramedModel implements IUnbakedGeometry<FramedModel> {
         }
     }
 
+    /**
+     * A face of the frame block model whose sprite, tint and light are copied to the framed quads.
+     */
+    private record FrameFace(TextureAtlasSprite sprite, int tint, int[] lights) {
+    }
+
+    private record FramedQuadKey(String part, @Nullable Item frameItem, @Nullable Direction side, @Nullable RenderType renderType) {
+    }
+
     /**
      * A model data container which stores data for child components.
      */
@@ -534,7 +501,7 @@ public class FramedModel implements IUnbakedGeometry<FramedModel> {
                     FramedDrawerModelData framedDrawerModelData = FramedDrawerBlock.getDrawerModelData(itemStack);
                     if (framedDrawerModelData != null && framedDrawerModelData.getDesign().containsKey(entry.getKey())) {
                         Item item = framedDrawerModelData.getDesign().get(entry.getKey());
-                        quadLists.add(getQuadsUsingShape(item, quads, side, rand, renderType));
+                        quadLists.add(baked.getFramedQuads(entry.getKey(), item, quads, side, rand, renderType));
                     } else {
                         quadLists.add(quads);
                     }
@@ -14,6 +14,7 @@ public abstract class ControllerFluidHandler implements IFluidHandler {
 
     HandlerTankSelector[] selectors;
     private int tanks = 0;
+    private List<Integer> handlerTanks;
 
     public ControllerFluidHandler() {
         invalidateSlots();
@@ -21,10 +22,15 @@ public abstract class ControllerFluidHandler implements IFluidHandler {
 
     public void invalidateSlots() {
         List<HandlerTankSelector> selectors = new ArrayList<>();
+        this.handlerTanks = new ArrayList<>();
         this.tanks = 0;
         for (IFluidHandler handler : getDrawers().getFluidHandlers()) {
-            if (handler instanceof ControllerInventoryHandler) continue;
+            if (handler instanceof ControllerInventoryHandler) {
+                this.handlerTanks.add(0);
+                continue;
+            }
             int handlerTanks = handler.getTanks();
+            this.handlerTanks.add(handlerTanks);
             for (int i = 0; i < handlerTanks; ++i) {
                 selectors.add(new HandlerTankSelector(handler, i));
             }
@@ -33,6 +39,45 @@ public abstract class ControllerFluidHandler implements IFluidHandler {
         this.selectors = selectors.toArray(new HandlerTankSelector[selectors.size()]);
     }
 
+    /**
+     * Splices the tanks of a newly linked handler into the controller at the given position of
+     * {@link ConnectedDrawers#getFluidHandlers()}.
+     */
+    public void addHandler(int index, IFluidHandler handler) {
+        int count = handler.getTanks();
+        int offset = getHandlerOffset(index);
+        this.handlerTanks.add(index, count);
+        HandlerTankSelector[] selectors = new HandlerTankSelector[this.selectors.length + count];
+        System.arraycopy(this.selectors, 0, selectors, 0, offset);
+        System.arraycopy(this.selectors, offset, selectors, offset + count, this.selectors.length - offset);
+        for (int i = 0; i < count; i++) {
+            selectors[offset + i] = new HandlerTankSelector(handler, i);
+        }
+        this.selectors = selectors;
+        this.tanks += count;
+    }
+
+    /**
+     * Removes the tanks of the handler at the given position of {@link ConnectedDrawers#getFluidHandlers()}.
+     */
+    public void removeHandler(int index) {
+        int offset = getHandlerOffset(index);
+        int count = this.handlerTanks.remove(index);
+        HandlerTankSelector[] selectors = new HandlerTankSelector[this.selectors.length - count];
+        System.arraycopy(this.selectors, 0, selectors, 0, offset);
+        System.arraycopy(this.selectors, offset + count, selectors, offset, selectors.length - offset);
+        this.selectors = selectors;
+        this.tanks -= count;
+    }
+
+    private int getHandlerOffset(int index) {
+        int offset = 0;
+        for (int i = 0; i < index; i++) {
+            offset += this.handlerTanks.get(i);
+        }
+        return offset;
+    }
+
     private HandlerTankSelector selectorForTank(int tank) {
         return tank >= 0 && tank < selectors.length ? selectors[tank] : null;
     }
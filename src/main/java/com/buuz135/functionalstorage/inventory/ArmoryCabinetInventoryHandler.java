@@ -1,8 +1,12 @@
 package com.buuz135.functionalstorage.inventory;
 
 import com.buuz135.functionalstorage.block.config.FunctionalStorageConfig;
+import com.buuz135.functionalstorage.util.NBTLayout;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.Tag;
 import net.minecraft.world.item.HorseArmorItem;
+import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.RecordItem;
 import net.minecraftforge.common.capabilities.ForgeCapabilities;
@@ -10,15 +14,29 @@ import net.minecraftforge.common.util.INBTSerializable;
 import net.minecraftforge.items.IItemHandler;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
 
 public abstract class ArmoryCabinetInventoryHandler implements IItemHandler, INBTSerializable<CompoundTag> {
 
-    public List<ItemStack> stackList;
+    public static String SLOTS = "Slots";
+    public static String STACKS = "Stacks";
+
+    private final Map<Integer, ItemStack> stacks;
+    private final BitSet occupied;
+    private final Map<Item, BitSet> itemSlots;
+    // the stored stacks are handed out by getStackInSlot and can be changed by the caller, so the index keeps its own item
+    private final Map<Integer, Item> slotItems;
+    // slots whose stack was handed out, a caller emptying it frees the slot, which is checked when a free slot is needed
+    private final BitSet lent;
 
     public ArmoryCabinetInventoryHandler() {
-        this.stackList = create();
+        this.stacks = new HashMap<>();
+        this.occupied = new BitSet();
+        this.itemSlots = new HashMap<>();
+        this.slotItems = new HashMap<>();
+        this.lent = new BitSet();
     }
 
     @Override
@@ -29,10 +47,9 @@ public abstract class ArmoryCabinetInventoryHandler implements IItemHandler, INB
     @NotNull
     @Override
     public ItemStack getStackInSlot(int slot) {
-        if (slot < this.stackList.size()){
-            return this.stackList.get(slot);
-        }
-        return ItemStack.EMPTY;
+        if (isFree(slot)) return ItemStack.EMPTY;
+        this.lent.set(slot);
+        return this.stacks.get(slot);
     }
 
     @NotNull
@@ -40,7 +57,7 @@ public abstract class ArmoryCabinetInventoryHandler implements IItemHandler, INB
     public ItemStack insertItem(int slot, @NotNull ItemStack stack, boolean simulate) {
         if (isValid(slot, stack)) {
             if (!simulate){
-                this.stackList.set(slot, stack);
+                setStack(slot, stack);
                 onChange();
             }
             return ItemStack.EMPTY;
@@ -48,17 +65,89 @@ public abstract class ArmoryCabinetInventoryHandler implements IItemHandler, INB
         return stack;
     }
 
+    /**
+     * Inserts the stack in the first free slot instead of going through every slot.
+     *
+     * @return the stack that couldn't be inserted
+     */
+    public ItemStack insertItem(@NotNull ItemStack stack, boolean simulate) {
+        int slot = getFirstFreeSlot();
+        if (slot == -1) return stack;
+        return insertItem(slot, stack, simulate);
+    }
+
+    /**
+     * @return the first empty slot, -1 if the cabinet is full
+     */
+    public int getFirstFreeSlot() {
+        int slot = this.occupied.nextClearBit(0);
+        for (int i = this.lent.nextSetBit(0); i >= 0 && i < slot; i = this.lent.nextSetBit(i + 1)) {
+            if (isFree(i)) {
+                slot = i;
+                break;
+            }
+        }
+        return slot < getSlots() ? slot : -1;
+    }
+
+    /**
+     * @return the amount of slots with an item in them
+     */
+    public int getOccupiedSlots() {
+        freeEmptiedSlots();
+        return this.stacks.size();
+    }
+
+    public boolean isEmpty() {
+        freeEmptiedSlots();
+        return this.stacks.isEmpty();
+    }
+
+    /**
+     * @return the slots that hold the item, in ascending order
+     */
+    public int[] findSlots(Item item) {
+        freeEmptiedSlots();
+        BitSet slots = this.itemSlots.get(item);
+        return slots == null ? new int[0] : slots.stream().toArray();
+    }
+
+    /**
+     * @return the first slot that holds the item, -1 if there isn't any
+     */
+    public int findSlot(Item item) {
+        BitSet slots = this.itemSlots.get(item);
+        if (slots == null) return -1;
+        for (int i = slots.nextSetBit(0); i >= 0; i = slots.nextSetBit(i + 1)) {
+            if (!isFree(i)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the first slot that holds the same item and tags as the stack, -1 if there isn't any
+     */
+    public int findSlot(ItemStack stack) {
+        BitSet slots = this.itemSlots.get(stack.getItem());
+        if (slots == null) return -1;
+        for (int i = slots.nextSetBit(0); i >= 0; i = slots.nextSetBit(i + 1)) {
+            if (!isFree(i) && ItemStack.isSameItemSameTags(this.stacks.get(i), stack)) return i;
+        }
+        return -1;
+    }
+
     public abstract void onChange();
 
     @NotNull
     @Override
     public ItemStack extractItem(int slot, int amount, boolean simulate) {
+        if (isFree(slot)) return ItemStack.EMPTY;
         if (!simulate){
-            ItemStack stack = this.stackList.set(slot, ItemStack.EMPTY);
+            ItemStack stack = setStack(slot, ItemStack.EMPTY);
             onChange();
             return stack;
         }
-        return this.stackList.get(slot);
+        return this.stacks.get(slot).copy();
     }
 
     @Override
@@ -72,7 +161,23 @@ public abstract class ArmoryCabinetInventoryHandler implements IItemHandler, INB
     }
 
     private boolean isValid(int slot, @NotNull ItemStack stack) {
-        return !stack.isEmpty() && this.stackList.get(slot).isEmpty() && isCertifiedStack(stack);
+        return !stack.isEmpty() && slot < getSlots() && isFree(slot) && isCertifiedStack(stack);
+    }
+
+    /**
+     * @return true if the slot has no stack or its stack was emptied by a caller, which then gets removed
+     */
+    private boolean isFree(int slot) {
+        if (!this.occupied.get(slot)) return true;
+        if (!this.stacks.get(slot).isEmpty()) return false;
+        setStack(slot, ItemStack.EMPTY);
+        return true;
+    }
+
+    private void freeEmptiedSlots() {
+        for (int i = this.lent.nextSetBit(0); i >= 0; i = this.lent.nextSetBit(i + 1)) {
+            isFree(i);
+        }
     }
 
     private boolean isCertifiedStack(ItemStack stack){
@@ -81,33 +186,66 @@ public abstract class ArmoryCabinetInventoryHandler implements IItemHandler, INB
         return stack.hasTag() || stack.isDamageableItem() || stack.isEnchantable() || stack.getItem() instanceof RecordItem || stack.getItem() instanceof HorseArmorItem;
     }
 
+    /**
+     * @return the stack that was in the slot
+     */
+    private ItemStack setStack(int slot, ItemStack stack) {
+        ItemStack previous;
+        Item previousItem;
+        this.lent.clear(slot);
+        if (stack.isEmpty()) {
+            previous = this.stacks.remove(slot);
+            previousItem = this.slotItems.remove(slot);
+            this.occupied.clear(slot);
+        } else {
+            previous = this.stacks.put(slot, stack);
+            previousItem = this.slotItems.put(slot, stack.getItem());
+            this.occupied.set(slot);
+            this.itemSlots.computeIfAbsent(stack.getItem(), item -> new BitSet()).set(slot);
+        }
+        if (previousItem != null && previousItem != stack.getItem()) {
+            BitSet slots = this.itemSlots.get(previousItem);
+            slots.clear(slot);
+            if (slots.isEmpty()) this.itemSlots.remove(previousItem);
+        }
+        return previous == null ? ItemStack.EMPTY : previous;
+    }
+
     @Override
     public CompoundTag serializeNBT() {
+        freeEmptiedSlots();
         CompoundTag compoundTag = new CompoundTag();
-        for (int i = 0; i < this.stackList.size(); i++) {
-            ItemStack stack = this.stackList.get(i);
-            if (!stack.isEmpty()){
-                compoundTag.put(i + "", stack.serializeNBT());
-            }
+        NBTLayout.putVersion(compoundTag);
+        compoundTag.putIntArray(SLOTS, this.occupied.stream().toArray());
+        ListTag stacks = new ListTag();
+        for (int i = this.occupied.nextSetBit(0); i >= 0; i = this.occupied.nextSetBit(i + 1)) {
+            stacks.add(this.stacks.get(i).serializeNBT());
         }
+        compoundTag.put(STACKS, stacks);
         return compoundTag;
     }
 
-    private List<ItemStack> create(){
-        List<ItemStack> stackList = new ArrayList<>();
-        for (int i = 0; i < FunctionalStorageConfig.ARMORY_CABINET_SIZE; i++) {
-            stackList.add(ItemStack.EMPTY);
-        }
-        return stackList;
-    }
-
     @Override
     public void deserializeNBT(CompoundTag nbt) {
-        this.stackList = create();
-        for (String allKey : nbt.getAllKeys()) {
-            int pos = Integer.parseInt(allKey);
-            if (pos < this.stackList.size()){
-                this.stackList.set(pos, ItemStack.of(nbt.getCompound(allKey)));
+        this.stacks.clear();
+        this.occupied.clear();
+        this.itemSlots.clear();
+        this.slotItems.clear();
+        this.lent.clear();
+        if (NBTLayout.isLegacy(nbt)) {
+            for (String allKey : nbt.getAllKeys()) {
+                int pos = Integer.parseInt(allKey);
+                if (pos < getSlots()){
+                    setStack(pos, ItemStack.of(nbt.getCompound(allKey)));
+                }
+            }
+            return;
+        }
+        int[] slots = nbt.getIntArray(SLOTS);
+        ListTag stacks = nbt.getList(STACKS, Tag.TAG_COMPOUND);
+        for (int i = 0; i < Math.min(slots.length, stacks.size()); i++) {
+            if (slots[i] < getSlots()) {
+                setStack(slots[i], ItemStack.of(stacks.getCompound(i)));
             }
         }
     }
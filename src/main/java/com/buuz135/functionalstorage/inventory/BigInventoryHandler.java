@@ -1,24 +1,32 @@
 package com.buuz135.functionalstorage.inventory;
 
 import com.buuz135.functionalstorage.FunctionalStorage;
+import com.buuz135.functionalstorage.util.NBTLayout;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.Tag;
 import net.minecraft.world.item.ItemStack;
 import net.minecraftforge.common.util.INBTSerializable;
-import net.minecraftforge.items.IItemHandler;
 import net.minecraftforge.items.ItemHandlerHelper;
 
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
 
-public abstract class BigInventoryHandler implements IItemHandler, INBTSerializable<CompoundTag>, ILockable {
+public abstract class BigInventoryHandler implements ILongItemHandler, INBTSerializable<CompoundTag>, ILockable, ISlotIdentityTracker {
 
     public static String BIG_ITEMS = "BigItems";
     public static String STACK = "Stack";
     public static String AMOUNT = "Amount";
+    public static String STACKS = "Stacks";
+    public static String AMOUNTS = "Amounts";
 
     private final FunctionalStorage.DrawerType type;
     private List<BigStack> storedStacks;
+    private final Set<ControllerInventoryHandler> identityListeners = Collections.newSetFromMap(new WeakHashMap<>());
 
     public BigInventoryHandler(FunctionalStorage.DrawerType type) {
         this.type = type;
@@ -44,56 +52,100 @@ public abstract class BigInventoryHandler implements IItemHandler, INBTSerializa
         return copied;
     }
 
+    @Override
+    public long getAmount(int slot) {
+        if (slot >= type.getSlots()) return 0;
+        BigStack bigStack = this.storedStacks.get(slot);
+        if (bigStack.getStack().isEmpty()) return 0;
+        return isCreative() ? Integer.MAX_VALUE : bigStack.getLongAmount();
+    }
+
+    @Override
+    public boolean isSameItem(int slot, ItemStack stack) {
+        return slot < type.getSlots() && ItemStack.isSameItemSameTags(this.storedStacks.get(slot).getStack(), stack);
+    }
+
+    @Override
+    public ItemStack peekStack(int slot) {
+        if (slot >= type.getSlots()) return ItemStack.EMPTY;
+        return this.storedStacks.get(slot).getStack();
+    }
+
     @Nonnull
     @Override
     public ItemStack insertItem(int slot, @Nonnull ItemStack stack, boolean simulate) {
+        long remaining = insertAmount(slot, stack, stack.getCount(), simulate);
+        if (remaining == 0) return ItemStack.EMPTY;
+        if (remaining == stack.getCount()) return stack;
+        return ItemHandlerHelper.copyStackWithSize(stack, (int) remaining);
+    }
+
+    @Override
+    public long insertAmount(int slot, ItemStack stack, long amount, boolean simulate) {
         if (isVoid() && type.getSlots() == slot && isVoidValid(stack) || (isVoidValid(stack) && isCreative()))
-            return ItemStack.EMPTY;
+            return 0;
         if (isValid(slot, stack)) {
             BigStack bigStack = this.storedStacks.get(slot);
-            int inserted = Math.min(getSlotLimit(slot) - bigStack.getAmount(), stack.getCount());
+            // a slot can hold more than its capacity after its upgrades or LONG_CAPACITY were removed, it just takes nothing
+            long inserted = Math.max(0, Math.min(getSlotCapacity(slot) - bigStack.getLongAmount(), amount));
             if (!simulate) {
-                if (bigStack.getStack().isEmpty())
+                boolean wasEmpty = bigStack.getStack().isEmpty();
+                if (wasEmpty)
                     bigStack.setStack(ItemHandlerHelper.copyStackWithSize(stack, stack.getMaxStackSize()));
-                bigStack.setAmount(Math.min(bigStack.getAmount() + inserted, getSlotLimit(slot)));
+                bigStack.setAmount(bigStack.getLongAmount() + inserted);
+                if (wasEmpty) notifyIdentityChanged(slot);
                 onChange();
             }
-            if (inserted == stack.getCount() || isVoid()) return ItemStack.EMPTY;
-            return ItemHandlerHelper.copyStackWithSize(stack, stack.getCount() - inserted);
+            if (inserted == amount || isVoid()) return 0;
+            return amount - inserted;
         }
-        return stack;
+        return amount;
     }
 
     @Nonnull
     @Override
     public ItemStack extractItem(int slot, int amount, boolean simulate) {
-        if (amount == 0 || type.getSlots() == slot) return ItemStack.EMPTY;
-        if (slot < type.getSlots()){
-            BigStack bigStack = this.storedStacks.get(slot);
-            if (bigStack.getStack().isEmpty()) return ItemStack.EMPTY;
-            if (!isCreative() && bigStack.getAmount() <= amount) {
-                ItemStack out = bigStack.getStack().copy();
-                int newAmount = bigStack.getAmount();
-                if (!simulate && !isCreative()) {
-                    if (!isLocked()) bigStack.setStack(ItemStack.EMPTY);
-                    bigStack.setAmount(0);
-                    onChange();
-                }
-                out.setCount(newAmount);
-                return out;
-            } else {
-                if (!simulate && !isCreative()) {
-                    bigStack.setAmount(bigStack.getAmount() - amount);
-                    onChange();
+        if (amount == 0 || slot >= type.getSlots()) return ItemStack.EMPTY;
+        ItemStack stored = this.storedStacks.get(slot).getStack();
+        if (stored.isEmpty()) return ItemStack.EMPTY;
+        ItemStack out = stored.copy();
+        long extracted = extractAmount(slot, amount, simulate);
+        if (extracted == 0) return ItemStack.EMPTY;
+        out.setCount((int) extracted);
+        return out;
+    }
+
+    @Override
+    public long extractAmount(int slot, long amount, boolean simulate) {
+        if (amount <= 0 || slot >= type.getSlots()) return 0;
+        BigStack bigStack = this.storedStacks.get(slot);
+        if (bigStack.getStack().isEmpty()) return 0;
+        if (!isCreative() && bigStack.getLongAmount() <= amount) {
+            long extracted = bigStack.getLongAmount();
+            if (!simulate) {
+                bigStack.setAmount(0);
+                if (!isLocked()) {
+                    bigStack.setStack(ItemStack.EMPTY);
+                    notifyIdentityChanged(slot);
                 }
-                return ItemHandlerHelper.copyStackWithSize(bigStack.getStack(), amount);
+                onChange();
             }
+            return extracted;
+        }
+        if (!simulate && !isCreative()) {
+            bigStack.setAmount(bigStack.getLongAmount() - amount);
+            onChange();
         }
-        return ItemStack.EMPTY;
+        return amount;
     }
 
     @Override
     public int getSlotLimit(int slot) {
+        return (int) Math.min(Integer.MAX_VALUE, getSlotCapacity(slot));
+    }
+
+    @Override
+    public long getSlotCapacity(int slot) {
         if (isCreative()) return Integer.MAX_VALUE;
         if (type.getSlots() == slot) return Integer.MAX_VALUE;
         double stackSize = 1;
@@ -102,7 +154,7 @@ public abstract class BigInventoryHandler implements IItemHandler, INBTSerializa
         }
         var slotAmount = type.getSlotAmount();
         if (hasDowngrade()) slotAmount = 64;
-        return (int) Math.floor(Math.min(Integer.MAX_VALUE, slotAmount * (long) getMultiplier()) * stackSize);
+        return (long) Math.floor(ILongItemHandler.clampCapacity(slotAmount * (long) getMultiplier()) * stackSize);
     }
 
     @Override
@@ -129,23 +181,74 @@ public abstract class BigInventoryHandler implements IItemHandler, INBTSerializa
 
     @Override
     public CompoundTag serializeNBT() {
-        CompoundTag compoundTag = new CompoundTag();
-        CompoundTag items = new CompoundTag();
+        return writeBigStacks(this.storedStacks);
+    }
+
+    @Override
+    public void deserializeNBT(CompoundTag nbt) {
+        readBigStacks(nbt, this.storedStacks);
         for (int i = 0; i < this.storedStacks.size(); i++) {
-            CompoundTag bigStack = new CompoundTag();
-            bigStack.put(STACK, this.storedStacks.get(i).getStack().serializeNBT());
-            bigStack.putInt(AMOUNT, this.storedStacks.get(i).getAmount());
-            items.put(i + "", bigStack);
+            notifyIdentityChanged(i);
+        }
+    }
+
+    /**
+     * Writes the stacks as a list of items and an array with their amounts.
+     */
+    public static CompoundTag writeBigStacks(List<BigStack> bigStacks) {
+        CompoundTag compoundTag = new CompoundTag();
+        NBTLayout.putVersion(compoundTag);
+        ListTag stacks = new ListTag();
+        long[] amounts = new long[bigStacks.size()];
+        for (int i = 0; i < bigStacks.size(); i++) {
+            stacks.add(NBTLayout.writeStack(bigStacks.get(i).getStack()));
+            amounts[i] = bigStacks.get(i).getLongAmount();
         }
-        compoundTag.put(BIG_ITEMS, items);
+        compoundTag.put(STACKS, stacks);
+        compoundTag.putLongArray(AMOUNTS, amounts);
         return compoundTag;
     }
 
+    /**
+     * Reads the stacks written by {@link #writeBigStacks(List)}, or by older versions that stored a compound per slot.
+     */
+    public static void readBigStacks(CompoundTag nbt, List<BigStack> bigStacks) {
+        if (NBTLayout.isLegacy(nbt)) {
+            CompoundTag items = nbt.getCompound(BIG_ITEMS);
+            for (String allKey : items.getAllKeys()) {
+                int slot = Integer.parseInt(allKey);
+                if (slot >= bigStacks.size()) continue;
+                bigStacks.get(slot).setStack(ItemStack.of(items.getCompound(allKey).getCompound(STACK)));
+                bigStacks.get(slot).setAmount(items.getCompound(allKey).getLong(AMOUNT));
+            }
+            return;
+        }
+        ListTag stacks = nbt.getList(STACKS, Tag.TAG_COMPOUND);
+        long[] amounts = nbt.getLongArray(AMOUNTS);
+        for (int i = 0; i < Math.min(bigStacks.size(), stacks.size()); i++) {
+            bigStacks.get(i).setStack(NBTLayout.readStack(stacks.getCompound(i)));
+            bigStacks.get(i).setAmount(i < amounts.length ? amounts[i] : 0);
+        }
+    }
+
     @Override
-    public void deserializeNBT(CompoundTag nbt) {
-        for (String allKey : nbt.getCompound(BIG_ITEMS).getAllKeys()) {
-            this.storedStacks.get(Integer.parseInt(allKey)).setStack(ItemStack.of(nbt.getCompound(BIG_ITEMS).getCompound(allKey).getCompound(STACK)));
-            this.storedStacks.get(Integer.parseInt(allKey)).setAmount(nbt.getCompound(BIG_ITEMS).getCompound(allKey).getInt(AMOUNT));
+    public void addIdentityListener(ControllerInventoryHandler listener) {
+        this.identityListeners.add(listener);
+    }
+
+    @Override
+    public void removeIdentityListener(ControllerInventoryHandler listener) {
+        this.identityListeners.remove(listener);
+    }
+
+    /**
+     * Tells the controllers this drawer is linked to that the item stored in the slot changed, needs to be called
+     * whenever a {@link BigStack} gets a new stack outside of the insert/extract methods.
+     */
+    public void notifyIdentityChanged(int slot) {
+        if (this.identityListeners.isEmpty()) return;
+        for (ControllerInventoryHandler listener : new ArrayList<>(this.identityListeners)) {
+            listener.onIdentityChanged(this, slot);
         }
     }
 
@@ -168,9 +271,9 @@ public abstract class BigInventoryHandler implements IItemHandler, INBTSerializa
     public static class BigStack {
 
         private ItemStack stack;
-        private int amount;
+        private long amount;
 
-        public BigStack(ItemStack stack, int amount) {
+        public BigStack(ItemStack stack, long amount) {
             this.stack = stack.copy();
             this.amount = amount;
         }
@@ -183,11 +286,18 @@ public abstract class BigInventoryHandler implements IItemHandler, INBTSerializa
             this.stack = stack.copy();
         }
 
+        /**
+         * @return the stored amount, saturated at {@link Integer#MAX_VALUE}
+         */
         public int getAmount() {
+            return (int) Math.min(Integer.MAX_VALUE, amount);
+        }
+
+        public long getLongAmount() {
             return amount;
         }
 
-        public void setAmount(int amount) {
+        public void setAmount(long amount) {
             this.amount = amount;
         }
     }
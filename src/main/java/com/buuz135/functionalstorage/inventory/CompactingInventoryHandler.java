@@ -1,29 +1,37 @@
 package com.buuz135.functionalstorage.inventory;
 
 import com.buuz135.functionalstorage.util.CompactingUtil;
+import com.buuz135.functionalstorage.util.NBTLayout;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.Tag;
 import net.minecraft.world.item.ItemStack;
 import net.minecraftforge.common.util.INBTSerializable;
-import net.minecraftforge.items.IItemHandler;
 import net.minecraftforge.items.ItemHandlerHelper;
 
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
 
-public abstract class CompactingInventoryHandler implements IItemHandler, INBTSerializable<CompoundTag>, ILockable {
+public abstract class CompactingInventoryHandler implements ILongItemHandler, INBTSerializable<CompoundTag>, ILockable, ISlotIdentityTracker {
 
     public static String PARENT = "Parent";
     public static String BIG_ITEMS = "BigItems";
     public static String STACK = "Stack";
     public static String AMOUNT = "Amount";
+    public static String RESULTS = "Results";
+    public static String NEEDED = "Needed";
 
     public int totalAmount;
 
-    private int amount;
+    private long amount;
     private ItemStack parent;
     private List<CompactingUtil.Result> resultList;
     private int slots;
+    private final Set<ControllerInventoryHandler> identityListeners = Collections.newSetFromMap(new WeakHashMap<>());
 
     public CompactingInventoryHandler(int slots) {
         this.resultList = new ArrayList<>();
@@ -50,28 +58,56 @@ public abstract class CompactingInventoryHandler implements IItemHandler, INBTSe
         if (slot >= this.slots) return ItemStack.EMPTY;
         CompactingUtil.Result bigStack = this.resultList.get(slot);
         ItemStack copied = bigStack.getResult().copy();
-        copied.setCount(isCreative() ? Integer.MAX_VALUE : this.amount / bigStack.getNeeded());
+        copied.setCount(isCreative() ? Integer.MAX_VALUE : (int) Math.min(Integer.MAX_VALUE, this.amount / bigStack.getNeeded()));
         return copied;
     }
 
+    @Override
+    public long getAmount(int slot) {
+        if (slot >= this.slots) return 0;
+        CompactingUtil.Result result = this.resultList.get(slot);
+        if (result.getResult().isEmpty()) return 0;
+        return isCreative() ? Integer.MAX_VALUE : this.amount / result.getNeeded();
+    }
+
+    @Override
+    public boolean isSameItem(int slot, ItemStack stack) {
+        return slot < this.slots && ItemStack.isSameItemSameTags(this.resultList.get(slot).getResult(), stack);
+    }
+
+    @Override
+    public ItemStack peekStack(int slot) {
+        if (slot >= this.slots) return ItemStack.EMPTY;
+        return this.resultList.get(slot).getResult();
+    }
+
     @Nonnull
     @Override
     public ItemStack insertItem(int slot, @Nonnull ItemStack stack, boolean simulate) {
+        long remaining = insertAmount(slot, stack, stack.getCount(), simulate);
+        if (remaining == 0) return ItemStack.EMPTY;
+        if (remaining == stack.getCount()) return stack;
+        return ItemHandlerHelper.copyStackWithSize(stack, (int) remaining);
+    }
+
+    @Override
+    public long insertAmount(int slot, ItemStack stack, long amount, boolean simulate) {
         if (isVoid() && slot == this.slots && isVoidValid(stack) || (isVoidValid(stack) && isCreative()))
-            return ItemStack.EMPTY;
+            return 0;
         if (isValid(slot, stack)) {
             CompactingUtil.Result result = this.resultList.get(slot);
-            int inserted = Math.min(getSlotLimit(slot) * result.getNeeded() - amount, stack.getCount() * result.getNeeded());
-            inserted = (int) (Math.floor(inserted / result.getNeeded()) * result.getNeeded());
+            long capacity = getSlotCapacity(slot);
+            // the drawer can hold more than its capacity after its upgrades or LONG_CAPACITY were removed, it just takes nothing
+            long inserted = Math.max(0, Math.min(capacity * result.getNeeded() - this.amount, Math.min(amount, capacity) * result.getNeeded()));
+            inserted = inserted / result.getNeeded() * result.getNeeded();
             if (!simulate) {
-                this.amount = Math.min(this.amount + inserted, totalAmount * getMultiplier());
+                this.amount += inserted;
                 onChange();
             }
-            if (inserted == stack.getCount() * result.getNeeded() || isVoid()) return ItemStack.EMPTY;
-            return ItemHandlerHelper.copyStackWithSize(stack, stack.getCount() - inserted / result.getNeeded());
-
+            if (inserted / result.getNeeded() == amount || isVoid()) return 0;
+            return amount - inserted / result.getNeeded();
         }
-        return stack;
+        return amount;
     }
 
     private boolean isVoidValid(ItemStack stack) {
@@ -94,6 +130,7 @@ public abstract class CompactingInventoryHandler implements IItemHandler, INBTSe
         if (this.parent.isEmpty() && compactingUtil.getResults().size() >= 3) {
             this.parent = compactingUtil.getResults().get(2).getResult();
         }
+        notifyIdentityChanged();
         onChange();
     }
 
@@ -103,50 +140,66 @@ public abstract class CompactingInventoryHandler implements IItemHandler, INBTSe
             result.setResult(ItemStack.EMPTY);
             result.setNeeded(1);
         });
+        notifyIdentityChanged();
     }
 
-    public int getAmount() {
+    /**
+     * @return the stored amount, in the items of the lowest tier
+     */
+    public long getAmount() {
         return amount;
     }
 
+    public void setAmount(long amount) {
+        this.amount = amount;
+    }
+
     @Nonnull
     @Override
     public ItemStack extractItem(int slot, int amount, boolean simulate) {
-        if (amount == 0 || slot == this.slots) return ItemStack.EMPTY;
-        if (slot < this.slots) {
-            CompactingUtil.Result bigStack = this.resultList.get(slot);
-            if (bigStack.getResult().isEmpty()) return ItemStack.EMPTY;
-            int stackAmount = bigStack.getNeeded() * amount;
-            if (!isCreative() && stackAmount >= this.amount) {
-                ItemStack out = bigStack.getResult().copy();
-                int newAmount = (int) Math.floor(this.amount / bigStack.getNeeded());
-                if (!simulate && !isCreative()) {
-                    this.amount -= (newAmount * bigStack.getNeeded());
-                    if (this.amount == 0) reset();
-                    onChange();
-                }
-                out.setCount(newAmount);
-                return out;
-            } else {
-                if (!simulate && !isCreative()) {
-                    this.amount -= stackAmount;
-                    onChange();
-                }
-                return ItemHandlerHelper.copyStackWithSize(bigStack.getResult(), amount);
-            }
-
+        if (amount == 0 || slot >= this.slots) return ItemStack.EMPTY;
+        ItemStack result = this.resultList.get(slot).getResult();
+        if (result.isEmpty()) return ItemStack.EMPTY;
+        ItemStack out = result.copy();
+        long extracted = extractAmount(slot, amount, simulate);
+        if (extracted == 0) return ItemStack.EMPTY;
+        out.setCount((int) extracted);
+        return out;
+    }
 
+    @Override
+    public long extractAmount(int slot, long amount, boolean simulate) {
+        if (amount <= 0 || slot >= this.slots) return 0;
+        CompactingUtil.Result bigStack = this.resultList.get(slot);
+        if (bigStack.getResult().isEmpty()) return 0;
+        long available = this.amount / bigStack.getNeeded();
+        if (!isCreative() && amount >= available) {
+            if (!simulate) {
+                this.amount -= available * bigStack.getNeeded();
+                if (this.amount == 0) reset();
+                onChange();
+            }
+            return available;
+        }
+        if (!simulate && !isCreative()) {
+            this.amount -= amount * bigStack.getNeeded();
+            onChange();
         }
-        return ItemStack.EMPTY;
+        return amount;
     }
 
     @Override
     public int getSlotLimit(int slot) {
+        return (int) Math.min(Integer.MAX_VALUE, getSlotCapacity(slot));
+    }
+
+    @Override
+    public long getSlotCapacity(int slot) {
         if (isCreative()) return Integer.MAX_VALUE;
         if (slot == this.slots) return Integer.MAX_VALUE;
-        int total = totalAmount;
+        long total = totalAmount;
         if (hasDowngrade()) total = 64 * 9 * 9;
-        return (int) Math.min(Integer.MAX_VALUE, Math.floor((total * getMultiplier()) / this.resultList.get(slot).getNeeded()));
+        return ILongItemHandler.clampCapacity(total * getMultiplier()) / this.resultList.get(slot).getNeeded();
     }
 
     public int getSlotLimitBase(int slot) {
@@ -173,26 +226,74 @@ public abstract class CompactingInventoryHandler implements IItemHandler, INBTSe
     @Override
     public CompoundTag serializeNBT() {
         CompoundTag compoundTag = new CompoundTag();
-        compoundTag.put(PARENT, this.getParent().serializeNBT());
-        compoundTag.putInt(AMOUNT, this.amount);
-        CompoundTag items = new CompoundTag();
-        for (int i = 0; i < this.resultList.size(); i++) {
-            CompoundTag bigStack = new CompoundTag();
-            bigStack.put(STACK, this.resultList.get(i).getResult().serializeNBT());
-            bigStack.putInt(AMOUNT, this.resultList.get(i).getNeeded());
-            items.put(i + "", bigStack);
-        }
-        compoundTag.put(BIG_ITEMS, items);
+        NBTLayout.putVersion(compoundTag);
+        compoundTag.put(PARENT, NBTLayout.writeStack(this.getParent()));
+        compoundTag.putLong(AMOUNT, this.amount);
+        writeResults(compoundTag, this.resultList);
         return compoundTag;
     }
 
     @Override
     public void deserializeNBT(CompoundTag nbt) {
-        this.parent = ItemStack.of(nbt.getCompound(PARENT));
-        this.amount = nbt.getInt(AMOUNT);
-        for (String allKey : nbt.getCompound(BIG_ITEMS).getAllKeys()) {
-            this.resultList.get(Integer.parseInt(allKey)).setResult(ItemStack.of(nbt.getCompound(BIG_ITEMS).getCompound(allKey).getCompound(STACK)));
-            this.resultList.get(Integer.parseInt(allKey)).setNeeded(Math.max(1, nbt.getCompound(BIG_ITEMS).getCompound(allKey).getInt(AMOUNT)));
+        this.parent = NBTLayout.readStack(nbt.getCompound(PARENT));
+        this.amount = nbt.getLong(AMOUNT);
+        readResults(nbt, this.resultList);
+        notifyIdentityChanged();
+    }
+
+    /**
+     * Writes the results as a list of items and an array with the amount of the lowest tier each one needs.
+     */
+    public static void writeResults(CompoundTag compoundTag, List<CompactingUtil.Result> results) {
+        ListTag stacks = new ListTag();
+        int[] needed = new int[results.size()];
+        for (int i = 0; i < results.size(); i++) {
+            stacks.add(NBTLayout.writeStack(results.get(i).getResult()));
+            needed[i] = results.get(i).getNeeded();
+        }
+        compoundTag.put(RESULTS, stacks);
+        compoundTag.putIntArray(NEEDED, needed);
+    }
+
+    /**
+     * Reads the results written by {@link #writeResults(CompoundTag, List)}, or by older versions that stored a
+     * compound per result.
+     */
+    public static void readResults(CompoundTag nbt, List<CompactingUtil.Result> results) {
+        if (NBTLayout.isLegacy(nbt)) {
+            CompoundTag items = nbt.getCompound(BIG_ITEMS);
+            for (String allKey : items.getAllKeys()) {
+                int slot = Integer.parseInt(allKey);
+                if (slot >= results.size()) continue;
+                results.get(slot).setResult(ItemStack.of(items.getCompound(allKey).getCompound(STACK)));
+                results.get(slot).setNeeded(Math.max(1, items.getCompound(allKey).getInt(AMOUNT)));
+            }
+            return;
+        }
+        ListTag stacks = nbt.getList(RESULTS, Tag.TAG_COMPOUND);
+        int[] needed = nbt.getIntArray(NEEDED);
+        for (int i = 0; i < Math.min(results.size(), stacks.size()); i++) {
+            results.get(i).setResult(NBTLayout.readStack(stacks.getCompound(i)));
+            results.get(i).setNeeded(Math.max(1, i < needed.length ? needed[i] : 1));
+        }
+    }
+
+    @Override
+    public void addIdentityListener(ControllerInventoryHandler listener) {
+        this.identityListeners.add(listener);
+    }
+
+    @Override
+    public void removeIdentityListener(ControllerInventoryHandler listener) {
+        this.identityListeners.remove(listener);
+    }
+
+    private void notifyIdentityChanged() {
+        if (this.identityListeners.isEmpty()) return;
+        for (ControllerInventoryHandler listener : new ArrayList<>(this.identityListeners)) {
+            for (int i = 0; i < this.slots; i++) {
+                listener.onIdentityChanged(this, i);
+            }
         }
     }
 
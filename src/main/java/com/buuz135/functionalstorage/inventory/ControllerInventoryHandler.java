@@ -2,12 +2,23 @@ package com.buuz135.functionalstorage.inventory;
 
 import com.buuz135.functionalstorage.block.tile.DrawerControllerTile;
 import com.buuz135.functionalstorage.util.ConnectedDrawers;
+import com.buuz135.functionalstorage.util.ItemKey;
 import net.minecraft.world.item.ItemStack;
 import net.minecraftforge.items.IItemHandler;
+import net.minecraftforge.items.ItemHandlerHelper;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 class HandlerSlotSelector {
     IItemHandler handler;
@@ -30,6 +41,17 @@ class HandlerSlotSelector {
         return handler.extractItem(slot, amount, simulate);
     }
 
+    /**
+     * Inserts the given amount of the stack, ignoring the count of the stack, in one call when the handler supports it.
+     *
+     * @return the amount that couldn't be inserted
+     */
+    public long insertAmount(ItemStack stack, long amount, boolean simulate) {
+        if (handler instanceof ILongItemHandler longItemHandler) return longItemHandler.insertAmount(slot, stack, amount, simulate);
+        int count = (int) Math.min(amount, Integer.MAX_VALUE);
+        return amount - count + handler.insertItem(slot, ItemHandlerHelper.copyStackWithSize(stack, count), simulate).getCount();
+    }
+
     public int getSlotLimit() {
         return handler.getSlotLimit(slot);
     }
@@ -37,12 +59,50 @@ class HandlerSlotSelector {
     public boolean isItemValid(@NotNull ItemStack stack) {
         return handler.isItemValid(slot, stack);
     }
+
+    /**
+     * The item this slot is set to hold, even if its amount is 0 (locked drawers), without copying it when possible.
+     */
+    public ItemStack getIdentity() {
+        if (handler instanceof ISlotQuery query) return query.peekStack(slot);
+        return handler.getStackInSlot(slot);
+    }
+
+    public long getAmount() {
+        return ISlotQuery.getAmount(handler, slot);
+    }
+
+    public boolean isSameItem(ItemStack stack) {
+        if (handler instanceof ISlotQuery query) return query.isSameItem(slot, stack);
+        return ItemStack.isSameItemSameTags(handler.getStackInSlot(slot), stack);
+    }
+
+    /**
+     * If this slot can start holding a new item while empty, void slots and unconfigured compacting drawers can't.
+     */
+    public boolean acceptsNewItems() {
+        if (handler instanceof BigInventoryHandler bigInventoryHandler) {
+            return slot < bigInventoryHandler.getStoredStacks().size();
+        }
+        return !(handler instanceof CompactingInventoryHandler);
+    }
+
+    public boolean isLocked() {
+        return handler instanceof ILockable lockable && lockable.isLocked();
+    }
 }
 
-public abstract class ControllerInventoryHandler implements IItemHandler {
+public abstract class ControllerInventoryHandler implements IItemHandler, ISlotQuery {
 
     HandlerSlotSelector[] selectors;
     private int slots = 0;
+    private ItemKey[] slotKeys;
+    private Map<IItemHandler, List<Integer>> handlerOffsets;
+    private List<Integer> handlerSlots;
+    private Map<ItemKey, NavigableSet<Integer>> itemSlots;
+    private NavigableSet<Integer> emptySlots;
+    private int itemsVersion;
+    private AggregatedView aggregatedView;
 
     public ControllerInventoryHandler() {
         invalidateSlots();
@@ -54,17 +114,313 @@ public abstract class ControllerInventoryHandler implements IItemHandler {
     }
 
     public void invalidateSlots() {
+        if (this.handlerOffsets != null) {
+            for (IItemHandler handler : this.handlerOffsets.keySet()) {
+                if (handler instanceof ISlotIdentityTracker tracker) tracker.removeIdentityListener(this);
+            }
+        }
         List<HandlerSlotSelector> selectors = new ArrayList<HandlerSlotSelector>();
+        this.handlerOffsets = new IdentityHashMap<>();
+        this.handlerSlots = new ArrayList<>();
         this.slots = 0;
         for (IItemHandler handler : getDrawers().getItemHandlers()) {
-            if (handler instanceof ControllerInventoryHandler) continue;
+            if (handler instanceof ControllerInventoryHandler) {
+                this.handlerSlots.add(0);
+                continue;
+            }
             int handlerSlots = handler.getSlots();
+            this.handlerSlots.add(handlerSlots);
+            this.handlerOffsets.computeIfAbsent(handler, iItemHandler -> new ArrayList<>()).add(this.slots);
             for (int i = 0; i < handlerSlots; ++i) {
                 selectors.add(new HandlerSlotSelector(handler, i));
             }
             this.slots += handlerSlots;
         }
         this.selectors = selectors.toArray(new HandlerSlotSelector[selectors.size()]);
+        rebuildIndex();
+        for (IItemHandler handler : this.handlerOffsets.keySet()) {
+            if (handler instanceof ISlotIdentityTracker tracker) tracker.addIdentityListener(this);
+        }
+    }
+
+    /**
+     * Splices the slots of a newly linked handler into the controller at the given position of
+     * {@link ConnectedDrawers#getItemHandlers()}, shifting the slots of the handlers after it.
+     */
+    public void addHandler(int index, IItemHandler handler) {
+        int count = handler instanceof ControllerInventoryHandler ? 0 : handler.getSlots();
+        int offset = getHandlerOffset(index);
+        this.handlerSlots.add(index, count);
+        if (count == 0) return;
+        HandlerSlotSelector[] selectors = new HandlerSlotSelector[this.selectors.length + count];
+        System.arraycopy(this.selectors, 0, selectors, 0, offset);
+        System.arraycopy(this.selectors, offset, selectors, offset + count, this.selectors.length - offset);
+        for (int i = 0; i < count; i++) {
+            selectors[offset + i] = new HandlerSlotSelector(handler, i);
+        }
+        ItemKey[] slotKeys = new ItemKey[selectors.length];
+        System.arraycopy(this.slotKeys, 0, slotKeys, 0, offset);
+        System.arraycopy(this.slotKeys, offset, slotKeys, offset + count, this.slotKeys.length - offset);
+        this.selectors = selectors;
+        this.slotKeys = slotKeys;
+        this.slots += count;
+        shiftIndex(offset, count);
+        this.handlerOffsets.computeIfAbsent(handler, iItemHandler -> new ArrayList<>()).add(offset);
+        for (int i = offset; i < offset + count; i++) {
+            indexSlot(i);
+        }
+        if (handler instanceof ISlotIdentityTracker tracker) tracker.addIdentityListener(this);
+    }
+
+    /**
+     * Removes the slots of the handler at the given position of {@link ConnectedDrawers#getItemHandlers()},
+     * shifting the slots of the handlers after it.
+     */
+    public void removeHandler(int index) {
+        int offset = getHandlerOffset(index);
+        int count = this.handlerSlots.remove(index);
+        if (count == 0) return;
+        IItemHandler handler = this.selectors[offset].handler;
+        for (int i = offset; i < offset + count; i++) {
+            unindexSlot(i);
+        }
+        HandlerSlotSelector[] selectors = new HandlerSlotSelector[this.selectors.length - count];
+        System.arraycopy(this.selectors, 0, selectors, 0, offset);
+        System.arraycopy(this.selectors, offset + count, selectors, offset, selectors.length - offset);
+        ItemKey[] slotKeys = new ItemKey[selectors.length];
+        System.arraycopy(this.slotKeys, 0, slotKeys, 0, offset);
+        System.arraycopy(this.slotKeys, offset + count, slotKeys, offset, slotKeys.length - offset);
+        this.selectors = selectors;
+        this.slotKeys = slotKeys;
+        this.slots -= count;
+        List<Integer> offsets = this.handlerOffsets.get(handler);
+        if (offsets != null) {
+            offsets.remove((Integer) offset);
+            if (offsets.isEmpty()) {
+                this.handlerOffsets.remove(handler);
+                if (handler instanceof ISlotIdentityTracker tracker) tracker.removeIdentityListener(this);
+            }
+        }
+        shiftIndex(offset + count, -count);
+    }
+
+    private int getHandlerOffset(int index) {
+        int offset = 0;
+        for (int i = 0; i < index; i++) {
+            offset += this.handlerSlots.get(i);
+        }
+        return offset;
+    }
+
+    /**
+     * Moves every indexed slot starting at the given one by the given amount after slots were added or removed before them.
+     */
+    private void shiftIndex(int from, int amount) {
+        for (NavigableSet<Integer> set : this.itemSlots.values()) {
+            shiftSet(set, from, amount);
+        }
+        shiftSet(this.emptySlots, from, amount);
+        for (List<Integer> offsets : this.handlerOffsets.values()) {
+            offsets.replaceAll(offset -> offset >= from ? offset + amount : offset);
+        }
+    }
+
+    private static void shiftSet(NavigableSet<Integer> set, int from, int amount) {
+        NavigableSet<Integer> tail = set.tailSet(from, true);
+        if (tail.isEmpty()) return;
+        List<Integer> moved = new ArrayList<>(tail);
+        tail.clear();
+        for (Integer slot : moved) {
+            set.add(slot + amount);
+        }
+    }
+
+    private void rebuildIndex() {
+        this.slotKeys = new ItemKey[this.selectors.length];
+        this.itemSlots = new LinkedHashMap<>();
+        this.emptySlots = new TreeSet<>();
+        this.itemsVersion++;
+        for (int i = 0; i < this.selectors.length; i++) {
+            indexSlot(i);
+        }
+    }
+
+    private void indexSlot(int slot) {
+        ItemStack identity = this.selectors[slot].getIdentity();
+        if (identity.isEmpty()) {
+            if (this.selectors[slot].acceptsNewItems()) this.emptySlots.add(slot);
+        } else {
+            ItemKey key = ItemKey.copyOf(identity);
+            this.slotKeys[slot] = key;
+            this.itemSlots.computeIfAbsent(key, itemKey -> {
+                this.itemsVersion++;
+                return new TreeSet<>();
+            }).add(slot);
+        }
+    }
+
+    private void unindexSlot(int slot) {
+        ItemKey oldKey = this.slotKeys[slot];
+        if (oldKey != null) {
+            NavigableSet<Integer> holders = this.itemSlots.get(oldKey);
+            if (holders != null) {
+                holders.remove(slot);
+                if (holders.isEmpty()) {
+                    this.itemSlots.remove(oldKey);
+                    this.itemsVersion++;
+                }
+            }
+            this.slotKeys[slot] = null;
+        } else {
+            this.emptySlots.remove(slot);
+        }
+    }
+
+    private void refreshSlot(int slot) {
+        ItemKey oldKey = this.slotKeys[slot];
+        ItemStack identity = this.selectors[slot].getIdentity();
+        if (oldKey != null && !identity.isEmpty() && oldKey.matches(identity)) return;
+        unindexSlot(slot);
+        indexSlot(slot);
+    }
+
+    /**
+     * Called by the drawers linked to this controller when the item stored in one of their slots changes.
+     */
+    public void onIdentityChanged(IItemHandler handler, int slot) {
+        List<Integer> offsets = this.handlerOffsets.get(handler);
+        if (offsets == null) return;
+        for (Integer offset : offsets) {
+            int virtualSlot = offset + slot;
+            if (virtualSlot < this.selectors.length && this.selectors[virtualSlot].handler == handler) {
+                refreshSlot(virtualSlot);
+            }
+        }
+    }
+
+    /**
+     * Slots of this controller that are already holding the given item, sorted by drawer distance to the controller.
+     */
+    public SortedSet<Integer> getSlotsFor(ItemStack stack) {
+        if (stack.isEmpty()) return Collections.emptySortedSet();
+        NavigableSet<Integer> holders = this.itemSlots.get(ItemKey.of(stack));
+        return holders == null ? Collections.emptySortedSet() : Collections.unmodifiableSortedSet(holders);
+    }
+
+    /**
+     * Empty slots of this controller that can start holding a new item, sorted by drawer distance to the controller.
+     */
+    public SortedSet<Integer> getEmptySlots() {
+        return Collections.unmodifiableSortedSet(this.emptySlots);
+    }
+
+    /**
+     * Finds the slot the given stack would go into, first drawers already holding the item and then empty unlocked drawers.
+     *
+     * @return the slot or -1 if the item can't be inserted anywhere
+     */
+    public int findSlotFor(ItemStack stack) {
+        if (stack.isEmpty()) return -1;
+        NavigableSet<Integer> holders = this.itemSlots.get(ItemKey.of(stack));
+        if (holders != null) {
+            for (Integer slot : holders) {
+                if (this.selectors[slot].insertItem(stack, true).getCount() != stack.getCount()) return slot;
+            }
+        }
+        for (Integer slot : this.emptySlots) {
+            if (this.selectors[slot].isLocked()) continue;
+            if (this.selectors[slot].insertItem(stack, true).getCount() != stack.getCount()) return slot;
+        }
+        return -1;
+    }
+
+    /**
+     * Inserts the stack into the whole network instead of a single slot, filling drawers that already hold the item
+     * first and then empty unlocked drawers.
+     *
+     * @return the remainder that couldn't be inserted
+     */
+    public ItemStack insertItem(@NotNull ItemStack stack, boolean simulate) {
+        if (stack.isEmpty()) return stack;
+        long remaining = insertAmount(ItemKey.of(stack), stack, stack.getCount(), true, simulate);
+        if (remaining == 0) return ItemStack.EMPTY;
+        if (remaining == stack.getCount()) return stack;
+        return ItemHandlerHelper.copyStackWithSize(stack, (int) remaining);
+    }
+
+    /**
+     * Inserts several stacks into the whole network at once. Stacks are grouped by item and each group is routed once
+     * with its summed amount, walking the drawers that hold the item instead of searching the network for every stack.
+     * When simulating, groups are checked independently, so different items may count on the same empty drawer.
+     *
+     * @param stacks   the stacks to insert, they aren't modified
+     * @param newItems if items can start filling empty unlocked drawers, otherwise only drawers that are locked to the
+     *                 item or already store some of it are filled
+     * @return the remainders that couldn't be inserted, in the same order as the given stacks
+     */
+    public List<ItemStack> insertItems(List<ItemStack> stacks, boolean newItems, boolean simulate) {
+        List<ItemStack> remainders = new ArrayList<>(stacks);
+        Map<ItemKey, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < stacks.size(); i++) {
+            ItemStack stack = stacks.get(i);
+            if (stack.isEmpty()) continue;
+            groups.computeIfAbsent(ItemKey.of(stack), key -> new ArrayList<>()).add(i);
+        }
+        for (Map.Entry<ItemKey, List<Integer>> group : groups.entrySet()) {
+            long amount = 0;
+            for (Integer index : group.getValue()) {
+                amount += stacks.get(index).getCount();
+            }
+            long inserted = amount - insertAmount(group.getKey(), stacks.get(group.getValue().get(0)), amount, newItems, simulate);
+            for (Integer index : group.getValue()) {
+                if (inserted == 0) break;
+                ItemStack stack = stacks.get(index);
+                int taken = (int) Math.min(inserted, stack.getCount());
+                inserted -= taken;
+                remainders.set(index, taken == stack.getCount() ? ItemStack.EMPTY : ItemHandlerHelper.copyStackWithSize(stack, stack.getCount() - taken));
+            }
+        }
+        return remainders;
+    }
+
+    private long insertAmount(ItemKey key, ItemStack stack, long amount, boolean newItems, boolean simulate) {
+        NavigableSet<Integer> holders = this.itemSlots.get(key);
+        if (holders != null) {
+            Integer slot = holders.isEmpty() ? null : holders.first();
+            while (slot != null) {
+                HandlerSlotSelector selector = this.selectors[slot];
+                if (newItems || selector.isLocked() || selector.getAmount() > 0) {
+                    amount = insertAmountAndRefresh(slot, stack, amount, simulate);
+                    if (amount == 0) return 0;
+                }
+                slot = holders.higher(slot);
+            }
+        }
+        if (!newItems) return amount;
+        // inserting into an empty slot moves it out of the empty set, so walk it by value instead of with an iterator
+        Integer slot = this.emptySlots.isEmpty() ? null : this.emptySlots.first();
+        while (slot != null) {
+            if (!this.selectors[slot].isLocked()) {
+                amount = insertAmountAndRefresh(slot, stack, amount, simulate);
+                if (amount == 0) return 0;
+            }
+            slot = this.emptySlots.higher(slot);
+        }
+        return amount;
+    }
+
+    private long insertAmountAndRefresh(int slot, ItemStack stack, long amount, boolean simulate) {
+        HandlerSlotSelector selector = this.selectors[slot];
+        long remaining = selector.insertAmount(stack, amount, simulate);
+        if (!simulate && !(selector.handler instanceof ISlotIdentityTracker)) refreshSlot(slot);
+        return remaining;
+    }
+
+    private ItemStack insertAndRefresh(int slot, ItemStack stack, boolean simulate) {
+        HandlerSlotSelector selector = this.selectors[slot];
+        ItemStack remaining = selector.insertItem(stack, simulate);
+        if (!simulate && !(selector.handler instanceof ISlotIdentityTracker)) refreshSlot(slot);
+        return remaining;
     }
 
     private HandlerSlotSelector selectorForSlot(int slot) {
@@ -78,18 +434,40 @@ public abstract class ControllerInventoryHandler implements IItemHandler {
         return null != selector ? selector.getStackInSlot() : ItemStack.EMPTY;
     }
 
+    @Override
+    public long getAmount(int slot) {
+        HandlerSlotSelector selector = selectorForSlot(slot);
+        return null != selector ? selector.getAmount() : 0;
+    }
+
+    @Override
+    public boolean isSameItem(int slot, ItemStack stack) {
+        HandlerSlotSelector selector = selectorForSlot(slot);
+        return null != selector && selector.isSameItem(stack);
+    }
+
+    @Override
+    public ItemStack peekStack(int slot) {
+        HandlerSlotSelector selector = selectorForSlot(slot);
+        return null != selector ? selector.getIdentity() : ItemStack.EMPTY;
+    }
+
     @NotNull
     @Override
     public ItemStack insertItem(int slot, @NotNull ItemStack stack, boolean simulate) {
         HandlerSlotSelector selector = selectorForSlot(slot);
-        return null != selector ? selector.insertItem(stack, simulate) : ItemStack.EMPTY;
+        if (null == selector) return ItemStack.EMPTY;
+        return insertAndRefresh(slot, stack, simulate);
     }
 
     @NotNull
     @Override
     public ItemStack extractItem(int slot, int amount, boolean simulate) {
         HandlerSlotSelector selector = selectorForSlot(slot);
-        return null != selector ? selector.extractItem(amount, simulate) : ItemStack.EMPTY;
+        if (null == selector) return ItemStack.EMPTY;
+        ItemStack extracted = selector.extractItem(amount, simulate);
+        if (!simulate && !(selector.handler instanceof ISlotIdentityTracker)) refreshSlot(slot);
+        return extracted;
     }
 
     @Override
@@ -105,4 +483,137 @@ public abstract class ControllerInventoryHandler implements IItemHandler {
     }
 
     public abstract ConnectedDrawers getDrawers();
+
+    /**
+     * @return a view of this controller with one slot per distinct stored item
+     */
+    public IAggregatedItemHandler getAggregatedView() {
+        if (this.aggregatedView == null) this.aggregatedView = new AggregatedView();
+        return this.aggregatedView;
+    }
+
+    private class AggregatedView implements IAggregatedItemHandler {
+
+        private final List<ItemKey> keys = new ArrayList<>();
+        private final Map<ItemKey, Integer> keySlots = new HashMap<>();
+        private final NavigableSet<Integer> freeSlots = new TreeSet<>();
+        private int version = -1;
+
+        /**
+         * Items keep their slot while they are stored. The slot of an item that is gone is left empty, a null key, until
+         * a new item takes it, new items only go after the existing slots when there isn't any free one.
+         */
+        private List<ItemKey> getKeys() {
+            if (this.version != itemsVersion) {
+                Iterator<Map.Entry<ItemKey, Integer>> iterator = this.keySlots.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<ItemKey, Integer> entry = iterator.next();
+                    if (itemSlots.containsKey(entry.getKey())) continue;
+                    this.keys.set(entry.getValue(), null);
+                    this.freeSlots.add(entry.getValue());
+                    iterator.remove();
+                }
+                for (ItemKey key : itemSlots.keySet()) {
+                    if (this.keySlots.containsKey(key)) continue;
+                    Integer slot = this.freeSlots.pollFirst();
+                    if (slot == null) {
+                        slot = this.keys.size();
+                        this.keys.add(key);
+                    } else {
+                        this.keys.set(slot, key);
+                    }
+                    this.keySlots.put(key, slot);
+                }
+                this.version = itemsVersion;
+            }
+            return this.keys;
+        }
+
+        private ItemKey getKey(int slot) {
+            List<ItemKey> keys = getKeys();
+            return slot >= 0 && slot < keys.size() ? keys.get(slot) : null;
+        }
+
+        private NavigableSet<Integer> getHolders(int slot) {
+            ItemKey key = getKey(slot);
+            return key == null ? null : itemSlots.get(key);
+        }
+
+        @Override
+        public int getSlots() {
+            return getKeys().size() + 1;
+        }
+
+        @Override
+        public long getAmount(int slot) {
+            NavigableSet<Integer> holders = getHolders(slot);
+            if (holders == null) return 0;
+            long amount = 0;
+            for (Integer holder : holders) {
+                amount += selectors[holder].getAmount();
+            }
+            return amount;
+        }
+
+        @Override
+        public boolean isSameItem(int slot, ItemStack stack) {
+            ItemKey key = getKey(slot);
+            return key != null && key.matches(stack);
+        }
+
+        @Override
+        public ItemStack peekStack(int slot) {
+            NavigableSet<Integer> holders = getHolders(slot);
+            if (holders == null || holders.isEmpty()) return ItemStack.EMPTY;
+            return selectors[holders.first()].getIdentity();
+        }
+
+        @NotNull
+        @Override
+        public ItemStack getStackInSlot(int slot) {
+            long amount = getAmount(slot);
+            if (amount <= 0) return ItemStack.EMPTY;
+            return ItemHandlerHelper.copyStackWithSize(peekStack(slot), (int) Math.min(amount, Integer.MAX_VALUE));
+        }
+
+        @NotNull
+        @Override
+        public ItemStack insertItem(int slot, @NotNull ItemStack stack, boolean simulate) {
+            if (!isItemValid(slot, stack)) return stack;
+            return ControllerInventoryHandler.this.insertItem(stack, simulate);
+        }
+
+        @NotNull
+        @Override
+        public ItemStack extractItem(int slot, int amount, boolean simulate) {
+            NavigableSet<Integer> holders = getHolders(slot);
+            if (holders == null || holders.isEmpty() || amount <= 0) return ItemStack.EMPTY;
+            ItemStack extracted = ItemStack.EMPTY;
+            int remaining = amount;
+            // extracting the last items of a slot moves it out of the set, so walk it by value instead of with an iterator
+            Integer holder = holders.first();
+            while (holder != null && remaining > 0) {
+                ItemStack stack = ControllerInventoryHandler.this.extractItem(holder, remaining, simulate);
+                if (!stack.isEmpty()) {
+                    if (extracted.isEmpty()) extracted = stack.copy();
+                    else extracted.grow(stack.getCount());
+                    remaining -= stack.getCount();
+                }
+                holder = holders.higher(holder);
+            }
+            return extracted;
+        }
+
+        @Override
+        public int getSlotLimit(int slot) {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public boolean isItemValid(int slot, @NotNull ItemStack stack) {
+            if (slot < 0 || slot >= getSlots()) return false;
+            ItemKey key = getKey(slot);
+            return key == null || key.matches(stack);
+        }
+    }
 }
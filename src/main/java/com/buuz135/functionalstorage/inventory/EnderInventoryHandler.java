@@ -1,6 +1,7 @@
 package com.buuz135.functionalstorage.inventory;
 
 import com.buuz135.functionalstorage.FunctionalStorage;
+import com.buuz135.functionalstorage.network.EnderDrawerSyncService;
 import com.buuz135.functionalstorage.world.EnderSavedData;
 import net.minecraft.nbt.CompoundTag;
 
@@ -37,11 +38,16 @@ public class EnderInventoryHandler extends BigInventoryHandler implements ILocka
 
     @Override
     public void onChange() {
+        markChanged();
+    }
+
+    private void markChanged() {
         manager.setDirty();
+        if (manager != EnderSavedData.CLIENT) EnderDrawerSyncService.markChanged(this.frequency);
     }
 
     @Override
-    public int getSlotLimit(int slot) {
+    public long getSlotCapacity(int slot) {
         if (slot == 1) return Integer.MAX_VALUE;
         double stackSize = 1;
         if (!getStoredStacks().get(slot).getStack().isEmpty()) {
@@ -85,11 +91,11 @@ public class EnderInventoryHandler extends BigInventoryHandler implements ILocka
 
     public void setLocked(boolean locked) {
         this.locked = locked;
-        manager.setDirty();
+        markChanged();
     }
 
     public void setVoidItems(boolean voidItems) {
         this.voidItems = voidItems;
-        manager.setDirty();
+        markChanged();
     }
 }
@@ -0,0 +1,15 @@
+package com.buuz135.functionalstorage.inventory;
+
+import net.minecraftforge.items.IItemHandler;
+
+/**
+ * View over a controller network with one slot per distinct stored item instead of one slot per drawer slot, for mods
+ * that scan the whole inventory. Each slot reports the summed amount of its item, extracting from it takes from the
+ * drawers holding the item sorted by distance to the controller and inserting routes through the whole network.
+ * <p>
+ * An item keeps its slot while it is stored. When it is gone its slot stays empty until another item takes it, so the
+ * slots of other items don't move. Empty slots, including the last one which is always empty, accept any item.
+ */
+public interface IAggregatedItemHandler extends IItemHandler, ISlotQuery {
+
+}
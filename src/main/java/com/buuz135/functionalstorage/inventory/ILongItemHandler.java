@@ -0,0 +1,38 @@
+package com.buuz135.functionalstorage.inventory;
+
+import com.buuz135.functionalstorage.block.config.FunctionalStorageConfig;
+import net.minecraft.world.item.ItemStack;
+import net.minecraftforge.items.IItemHandler;
+
+/**
+ * Drawer handler that can store more than {@link Integer#MAX_VALUE} items in a slot when
+ * {@link FunctionalStorageConfig#LONG_CAPACITY} is enabled. Its {@link IItemHandler} methods saturate at
+ * {@link Integer#MAX_VALUE}, these methods move and report the full amounts.
+ */
+public interface ILongItemHandler extends IItemHandler, ISlotQuery {
+
+    /**
+     * @return the max amount of items the slot can hold
+     */
+    long getSlotCapacity(int slot);
+
+    /**
+     * Inserts the given amount of the stack, ignoring the count of the stack.
+     *
+     * @return the amount that couldn't be inserted
+     */
+    long insertAmount(int slot, ItemStack stack, long amount, boolean simulate);
+
+    /**
+     * @return the amount of items extracted from the slot
+     */
+    long extractAmount(int slot, long amount, boolean simulate);
+
+    /**
+     * Clamps a capacity to {@link Integer#MAX_VALUE} unless {@link FunctionalStorageConfig#LONG_CAPACITY} is enabled.
+     */
+    static long clampCapacity(long capacity) {
+        return FunctionalStorageConfig.LONG_CAPACITY ? capacity : Math.min(Integer.MAX_VALUE, capacity);
+    }
+
+}
@@ -0,0 +1,13 @@
+package com.buuz135.functionalstorage.inventory;
+
+/**
+ * Implemented by drawer handlers that can tell a {@link ControllerInventoryHandler} when the item stored in
+ * one of their slots changes, so the controller can keep its routing index up to date without polling.
+ */
+public interface ISlotIdentityTracker {
+
+    void addIdentityListener(ControllerInventoryHandler listener);
+
+    void removeIdentityListener(ControllerInventoryHandler listener);
+
+}
@@ -0,0 +1,36 @@
+package com.buuz135.functionalstorage.inventory;
+
+import net.minecraft.world.item.ItemStack;
+import net.minecraftforge.items.IItemHandler;
+
+/**
+ * Read-only view over a drawer handler that doesn't copy the stored stacks, for code that only needs to look at a
+ * slot (renderers, redstone, probes, routing) instead of going through {@link IItemHandler#getStackInSlot(int)}.
+ */
+public interface ISlotQuery {
+
+    /**
+     * @return the amount of items in the slot, 0 if it is empty
+     */
+    long getAmount(int slot);
+
+    /**
+     * @return true if the slot holds the same item and tags as the given stack, ignoring the count
+     */
+    boolean isSameItem(int slot, ItemStack stack);
+
+    /**
+     * Borrows the stack stored in the slot without copying it, the returned stack must not be modified and its count
+     * is meaningless, use {@link #getAmount(int)} instead.
+     */
+    ItemStack peekStack(int slot);
+
+    /**
+     * Amount of items in the slot of any handler, only copying the stack when the handler isn't a {@link ISlotQuery}.
+     */
+    static long getAmount(IItemHandler handler, int slot) {
+        if (handler instanceof ISlotQuery query) return query.getAmount(slot);
+        return handler.getStackInSlot(slot).getCount();
+    }
+
+}
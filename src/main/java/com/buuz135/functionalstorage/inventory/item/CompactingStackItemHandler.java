@@ -1,8 +1,11 @@
 package com.buuz135.functionalstorage.inventory.item;
 
 import com.buuz135.functionalstorage.FunctionalStorage;
+import com.buuz135.functionalstorage.inventory.CompactingInventoryHandler;
+import com.buuz135.functionalstorage.inventory.ILongItemHandler;
 import com.buuz135.functionalstorage.item.StorageUpgradeItem;
 import com.buuz135.functionalstorage.util.CompactingUtil;
+import com.buuz135.functionalstorage.util.NBTLayout;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.Tag;
 import net.minecraft.world.item.ItemStack;
@@ -23,7 +26,7 @@ public class CompactingStackItemHandler implements IItemHandler, INBTSerializabl
 
     public int totalAmount;
 
-    private int amount;
+    private long amount;
     private ItemStack parent;
     private List<CompactingUtil.Result> resultList;
     private int slots;
@@ -85,7 +88,7 @@ public class CompactingStackItemHandler implements IItemHandler, INBTSerializabl
         if (slot >= this.slots) return ItemStack.EMPTY;
         CompactingUtil.Result bigStack = this.resultList.get(slot);
         ItemStack copied = bigStack.getResult().copy();
-        copied.setCount(isCreative() ? Integer.MAX_VALUE : this.amount / bigStack.getNeeded());
+        copied.setCount(isCreative() ? Integer.MAX_VALUE : (int) Math.min(Integer.MAX_VALUE, this.amount / bigStack.getNeeded()));
         return copied;
     }
 
@@ -96,14 +99,14 @@ public class CompactingStackItemHandler implements IItemHandler, INBTSerializabl
             return ItemStack.EMPTY;
         if (isValid(slot, stack)) {
             CompactingUtil.Result result = this.resultList.get(slot);
-            int inserted = Math.min(getSlotLimit(slot) * result.getNeeded() - amount, stack.getCount() * result.getNeeded());
-            inserted = (int) (Math.floor(inserted / result.getNeeded()) * result.getNeeded());
+            long inserted = Math.max(0, Math.min(getSlotCapacity(slot) * result.getNeeded() - this.amount, (long) stack.getCount() * result.getNeeded()));
+            inserted = inserted / result.getNeeded() * result.getNeeded();
             if (!simulate) {
-                this.amount = Math.min(this.amount + inserted, totalAmount * getMultiplier());
+                this.amount += inserted;
                 onChange();
             }
-            if (inserted == stack.getCount() * result.getNeeded() || isVoid()) return ItemStack.EMPTY;
-            return ItemHandlerHelper.copyStackWithSize(stack, stack.getCount() - inserted / result.getNeeded());
+            if (inserted == (long) stack.getCount() * result.getNeeded() || isVoid()) return ItemStack.EMPTY;
+            return ItemHandlerHelper.copyStackWithSize(stack, (int) (stack.getCount() - inserted / result.getNeeded()));
         }
         return stack;
     }
@@ -135,7 +138,7 @@ public class CompactingStackItemHandler implements IItemHandler, INBTSerializabl
 
     }
 
-    public int getAmount() {
+    public long getAmount() {
         return amount;
     }
 
@@ -146,12 +149,12 @@ public class CompactingStackItemHandler implements IItemHandler, INBTSerializabl
         if (slot < this.slots) {
             CompactingUtil.Result bigStack = this.resultList.get(slot);
             if (bigStack.getResult().isEmpty()) return ItemStack.EMPTY;
-            int stackAmount = bigStack.getNeeded() * amount;
+            long stackAmount = (long) bigStack.getNeeded() * amount;
             if (stackAmount >= this.amount) {
                 ItemStack out = bigStack.getResult().copy();
-                int newAmount = (int) Math.floor(this.amount / bigStack.getNeeded());
+                int newAmount = (int) (this.amount / bigStack.getNeeded());
                 if (!simulate && !isCreative()) {
-                    this.amount -= (newAmount * bigStack.getNeeded());
+                    this.amount -= (long) newAmount * bigStack.getNeeded();
                     if (this.amount == 0) reset();
                     onChange();
                 }
@@ -172,11 +175,18 @@ public class CompactingStackItemHandler implements IItemHandler, INBTSerializabl
 
     @Override
     public int getSlotLimit(int slot) {
+        return (int) Math.min(Integer.MAX_VALUE, getSlotCapacity(slot));
+    }
+
+    /**
+     * @return the max amount of items the slot can hold, see {@link ILongItemHandler#getSlotCapacity(int)}
+     */
+    public long getSlotCapacity(int slot) {
         if (isCreative()) return Integer.MAX_VALUE;
         if (slot == this.slots) return Integer.MAX_VALUE;
-        int total = totalAmount;
+        long total = totalAmount;
         if (hasDowngrade()) total = 64 * 9 * 9;
-        return (int) Math.min(Integer.MAX_VALUE, Math.floor((total * getMultiplier()) / this.resultList.get(slot).getNeeded()));
+        return ILongItemHandler.clampCapacity(total * getMultiplier()) / this.resultList.get(slot).getNeeded();
     }
 
     public int getSlotLimitBase(int slot) {
@@ -203,27 +213,18 @@ public class CompactingStackItemHandler implements IItemHandler, INBTSerializabl
     @Override
     public CompoundTag serializeNBT() {
         CompoundTag compoundTag = new CompoundTag();
-        compoundTag.put(PARENT, this.getParent().serializeNBT());
-        compoundTag.putInt(AMOUNT, this.amount);
-        CompoundTag items = new CompoundTag();
-        for (int i = 0; i < this.resultList.size(); i++) {
-            CompoundTag bigStack = new CompoundTag();
-            bigStack.put(STACK, this.resultList.get(i).getResult().serializeNBT());
-            bigStack.putInt(AMOUNT, this.resultList.get(i).getNeeded());
-            items.put(i + "", bigStack);
-        }
-        compoundTag.put(BIG_ITEMS, items);
+        NBTLayout.putVersion(compoundTag);
+        compoundTag.put(PARENT, NBTLayout.writeStack(this.getParent()));
+        compoundTag.putLong(AMOUNT, this.amount);
+        CompactingInventoryHandler.writeResults(compoundTag, this.resultList);
         return compoundTag;
     }
 
     @Override
     public void deserializeNBT(CompoundTag nbt) {
-        this.parent = ItemStack.of(nbt.getCompound(PARENT));
-        this.amount = nbt.getInt(AMOUNT);
-        for (String allKey : nbt.getCompound(BIG_ITEMS).getAllKeys()) {
-            this.resultList.get(Integer.parseInt(allKey)).setResult(ItemStack.of(nbt.getCompound(BIG_ITEMS).getCompound(allKey).getCompound(STACK)));
-            this.resultList.get(Integer.parseInt(allKey)).setNeeded(Math.max(1, nbt.getCompound(BIG_ITEMS).getCompound(allKey).getInt(AMOUNT)));
-        }
+        this.parent = NBTLayout.readStack(nbt.getCompound(PARENT));
+        this.amount = nbt.getLong(AMOUNT);
+        CompactingInventoryHandler.readResults(nbt, this.resultList);
     }
 
     public void onChange() {
@@ -2,6 +2,7 @@ package com.buuz135.functionalstorage.inventory.item;
 
 import com.buuz135.functionalstorage.FunctionalStorage;
 import com.buuz135.functionalstorage.inventory.BigInventoryHandler;
+import com.buuz135.functionalstorage.inventory.ILongItemHandler;
 import com.buuz135.functionalstorage.item.StorageUpgradeItem;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.Tag;
@@ -58,24 +59,12 @@ public class DrawerStackItemHandler implements IItemHandler, INBTSerializable<Co
 
     @Override
     public CompoundTag serializeNBT() {
-        CompoundTag compoundTag = new CompoundTag();
-        CompoundTag items = new CompoundTag();
-        for (int i = 0; i < this.storedStacks.size(); i++) {
-            CompoundTag bigStack = new CompoundTag();
-            bigStack.put(STACK, this.storedStacks.get(i).getStack().serializeNBT());
-            bigStack.putInt(AMOUNT, this.storedStacks.get(i).getAmount());
-            items.put(i + "", bigStack);
-        }
-        compoundTag.put(BIG_ITEMS, items);
-        return compoundTag;
+        return writeBigStacks(this.storedStacks);
     }
 
     @Override
     public void deserializeNBT(CompoundTag nbt) {
-        for (String allKey : nbt.getCompound(BIG_ITEMS).getAllKeys()) {
-            this.storedStacks.get(Integer.parseInt(allKey)).setStack(ItemStack.of(nbt.getCompound(BIG_ITEMS).getCompound(allKey).getCompound(STACK)));
-            this.storedStacks.get(Integer.parseInt(allKey)).setAmount(nbt.getCompound(BIG_ITEMS).getCompound(allKey).getInt(AMOUNT));
-        }
+        readBigStacks(nbt, this.storedStacks);
     }
 
     @Override
@@ -97,10 +86,10 @@ public class DrawerStackItemHandler implements IItemHandler, INBTSerializable<Co
     public ItemStack insertItem(int slot, @Nonnull ItemStack stack, boolean simulate) {
         if (isValid(slot, stack)) {
             BigStack bigStack = this.storedStacks.get(slot);
-            int inserted = Math.min(getSlotLimit(slot) - bigStack.getAmount(), stack.getCount());
+            int inserted = (int) Math.max(0, Math.min(getSlotCapacity(slot) - bigStack.getLongAmount(), stack.getCount()));
             if (!simulate) {
                 bigStack.setStack(stack);
-                bigStack.setAmount(Math.min(bigStack.getAmount() + inserted, getSlotLimit(slot)));
+                bigStack.setAmount(bigStack.getLongAmount() + inserted);
                 onChange();
             }
             if (inserted == stack.getCount() || isVoid()) return ItemStack.EMPTY;
@@ -135,7 +124,7 @@ public class DrawerStackItemHandler implements IItemHandler, INBTSerializable<Co
         if (slot < type.getSlots()) {
             BigStack bigStack = this.storedStacks.get(slot);
             if (bigStack.getStack().isEmpty()) return ItemStack.EMPTY;
-            if (bigStack.getAmount() <= amount) {
+            if (bigStack.getLongAmount() <= amount) {
                 ItemStack out = bigStack.getStack().copy();
                 int newAmount = bigStack.getAmount();
                 if (!simulate) {
@@ -147,7 +136,7 @@ public class DrawerStackItemHandler implements IItemHandler, INBTSerializable<Co
                 return out;
             } else {
                 if (!simulate) {
-                    bigStack.setAmount(bigStack.getAmount() - amount);
+                    bigStack.setAmount(bigStack.getLongAmount() - amount);
                     onChange();
                 }
                 return ItemHandlerHelper.copyStackWithSize(bigStack.getStack(), amount);
@@ -162,9 +151,16 @@ public class DrawerStackItemHandler implements IItemHandler, INBTSerializable<Co
 
     @Override
     public int getSlotLimit(int slot) {
-        var slotAmount = type.getSlotAmount();
+        return (int) Math.min(Integer.MAX_VALUE, getSlotCapacity(slot));
+    }
+
+    /**
+     * @return the max amount of items the slot can hold, see {@link ILongItemHandler#getSlotCapacity(int)}
+     */
+    public long getSlotCapacity(int slot) {
+        long slotAmount = type.getSlotAmount();
         if (hasDowngrade()) slotAmount = 64;
-        return (int) Math.min(Integer.MAX_VALUE, slotAmount * (long) getMultiplier());
+        return ILongItemHandler.clampCapacity(slotAmount * getMultiplier());
     }
 
     private long getMultiplier() {
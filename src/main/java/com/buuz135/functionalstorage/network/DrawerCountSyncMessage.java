@@ -0,0 +1,88 @@
+package com.buuz135.functionalstorage.network;
+
+import com.buuz135.functionalstorage.block.tile.ItemControllableDrawerTile;
+import com.hrznstudio.titanium.network.CompoundSerializableDataHandler;
+import com.hrznstudio.titanium.network.Message;
+import net.minecraft.client.Minecraft;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraftforge.network.NetworkEvent;
+
+import java.util.Arrays;
+
+/**
+ * Updates the amounts stored in the slots of a drawer on the client when the items stored in it didn't change, so
+ * inserts and extracts don't have to send the whole block entity tag. Slots and amounts are written as var ints and
+ * var longs.
+ */
+public class DrawerCountSyncMessage extends Message {
+
+    static {
+        CompoundSerializableDataHandler.map(SlotCounts.class, SlotCounts::read, (buf, counts) -> counts.write(buf));
+    }
+
+    public BlockPos pos;
+    public SlotCounts counts;
+
+    public DrawerCountSyncMessage(BlockPos pos) {
+        this.pos = pos;
+        this.counts = new SlotCounts();
+    }
+
+    public DrawerCountSyncMessage() {
+    }
+
+    public void add(int slot, long count) {
+        this.counts.add(slot, count);
+    }
+
+    public boolean isEmpty() {
+        return this.counts.size == 0;
+    }
+
+    @Override
+    protected void handleMessage(NetworkEvent.Context context) {
+        context.enqueueWork(() -> {
+            if (Minecraft.getInstance().level == null || !Minecraft.getInstance().level.isLoaded(pos)) return;
+            if (Minecraft.getInstance().level.getBlockEntity(pos) instanceof ItemControllableDrawerTile<?> tile) {
+                for (int i = 0; i < counts.size; i++) {
+                    tile.setSyncedCount(counts.slots[i], counts.counts[i]);
+                }
+            }
+        });
+    }
+
+    public static class SlotCounts {
+
+        private int[] slots = new int[4];
+        private long[] counts = new long[4];
+        private int size;
+
+        private void add(int slot, long count) {
+            if (this.size == this.slots.length) {
+                this.slots = Arrays.copyOf(this.slots, this.size * 2);
+                this.counts = Arrays.copyOf(this.counts, this.size * 2);
+            }
+            this.slots[this.size] = slot;
+            this.counts[this.size] = count;
+            this.size++;
+        }
+
+        private void write(FriendlyByteBuf buf) {
+            buf.writeVarInt(this.size);
+            for (int i = 0; i < this.size; i++) {
+                buf.writeVarInt(this.slots[i]);
+                buf.writeVarLong(this.counts[i]);
+            }
+        }
+
+        private static SlotCounts read(FriendlyByteBuf buf) {
+            SlotCounts slotCounts = new SlotCounts();
+            int size = buf.readVarInt();
+            for (int i = 0; i < size; i++) {
+                slotCounts.add(buf.readVarInt(), buf.readVarLong());
+            }
+            return slotCounts;
+        }
+    }
+}
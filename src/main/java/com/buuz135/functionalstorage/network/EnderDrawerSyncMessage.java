@@ -1,42 +1,58 @@
 package com.buuz135.functionalstorage.network;
 
+import com.buuz135.functionalstorage.inventory.BigInventoryHandler;
 import com.buuz135.functionalstorage.inventory.EnderInventoryHandler;
 import com.buuz135.functionalstorage.world.EnderSavedData;
-import com.hrznstudio.titanium.network.CompoundSerializableDataHandler;
 import com.hrznstudio.titanium.network.Message;
-import net.minecraft.client.Minecraft;
-import net.minecraftforge.items.IItemHandler;
+import net.minecraft.world.item.ItemStack;
 import net.minecraftforge.network.NetworkEvent;
 
+/**
+ * Updates the client copy of an ender frequency, either the whole state or only the amount when the stored item,
+ * lock and void didn't change since the last message the player got. Sent by {@link EnderDrawerSyncService}.
+ */
 public class EnderDrawerSyncMessage extends Message {
 
-    static {
-        CompoundSerializableDataHandler.map(EnderInventoryHandler.class, buf -> {
-            EnderInventoryHandler handler = new EnderInventoryHandler(buf.readUtf(), EnderSavedData.CLIENT);
-            handler.deserializeNBT(buf.readNbt());
-            return handler;
-        }, (buf, handler1) -> {
-            buf.writeUtf(handler1.getFrequency());
-            buf.writeNbt(handler1.serializeNBT());
-        });
-    }
-
-
     public String frequency;
-    public EnderInventoryHandler handler;
+    public boolean full;
+    public ItemStack stack = ItemStack.EMPTY;
+    public long amount;
+    public boolean locked;
+    public boolean voidItems;
 
-    public EnderDrawerSyncMessage(String frequency, EnderInventoryHandler handler) {
-        this.frequency = frequency;
-        this.handler = handler;
+    public EnderDrawerSyncMessage() {
     }
 
-    public EnderDrawerSyncMessage() {
+    public static EnderDrawerSyncMessage full(String frequency, EnderInventoryHandler handler) {
+        EnderDrawerSyncMessage message = new EnderDrawerSyncMessage();
+        BigInventoryHandler.BigStack bigStack = handler.getStoredStacks().get(0);
+        message.frequency = frequency;
+        message.full = true;
+        message.stack = bigStack.getStack().copy();
+        message.amount = bigStack.getLongAmount();
+        message.locked = handler.isLocked();
+        message.voidItems = handler.isVoid();
+        return message;
+    }
+
+    public static EnderDrawerSyncMessage amount(String frequency, long amount) {
+        EnderDrawerSyncMessage message = new EnderDrawerSyncMessage();
+        message.frequency = frequency;
+        message.amount = amount;
+        return message;
     }
 
     @Override
     protected void handleMessage(NetworkEvent.Context context) {
         context.enqueueWork(() -> {
-            EnderSavedData.getInstance(Minecraft.getInstance().level).setFrenquency(frequency, handler);
+            EnderInventoryHandler handler = EnderSavedData.CLIENT.getFrequency(frequency);
+            BigInventoryHandler.BigStack bigStack = handler.getStoredStacks().get(0);
+            if (full) {
+                bigStack.setStack(stack);
+                handler.setLocked(locked);
+                handler.setVoidItems(voidItems);
+            }
+            bigStack.setAmount(amount);
         });
     }
 }
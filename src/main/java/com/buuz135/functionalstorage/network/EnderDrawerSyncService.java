@@ -0,0 +1,112 @@
+package com.buuz135.functionalstorage.network;
+
+import com.buuz135.functionalstorage.FunctionalStorage;
+import com.buuz135.functionalstorage.block.tile.EnderDrawerTile;
+import com.buuz135.functionalstorage.inventory.BigInventoryHandler;
+import com.buuz135.functionalstorage.inventory.EnderInventoryHandler;
+import com.buuz135.functionalstorage.world.EnderSavedData;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.item.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.WeakHashMap;
+
+/**
+ * Keeps the ender frequencies of the players near an ender drawer in sync. Each frequency is sent once per player no
+ * matter how many drawers of it are around, only when it differs from what that player was last sent, and as an
+ * amount only update when the stored item didn't change.
+ */
+public class EnderDrawerSyncService {
+
+    private static final int RANGE = 32;
+    private static final int FULL_CHECK_INTERVAL = 20;
+
+    private static final Set<EnderDrawerTile> DRAWERS = Collections.newSetFromMap(new WeakHashMap<>());
+    private static final Set<String> CHANGED_FREQUENCIES = new HashSet<>();
+    private static final Map<UUID, Map<String, SentState>> SENT_STATES = new HashMap<>();
+
+    public static void addDrawer(EnderDrawerTile tile) {
+        DRAWERS.add(tile);
+        CHANGED_FREQUENCIES.add(tile.getFrequency());
+    }
+
+    public static void removeDrawer(EnderDrawerTile tile) {
+        DRAWERS.remove(tile);
+    }
+
+    public static void markChanged(String frequency) {
+        CHANGED_FREQUENCIES.add(frequency);
+    }
+
+    /**
+     * Syncs the changed frequencies every tick, and every frequency with a drawer every second so players that walk up
+     * to a drawer get its contents.
+     */
+    public static void tick(MinecraftServer server) {
+        boolean fullCheck = server.getTickCount() % FULL_CHECK_INTERVAL == 0;
+        if (!fullCheck && CHANGED_FREQUENCIES.isEmpty()) return;
+        Map<ServerPlayer, Set<String>> synced = new HashMap<>();
+        for (EnderDrawerTile drawer : new ArrayList<>(DRAWERS)) {
+            if (drawer.isRemoved() || !(drawer.getLevel() instanceof ServerLevel level)) continue;
+            String frequency = drawer.getFrequency();
+            if (!fullCheck && !CHANGED_FREQUENCIES.contains(frequency)) continue;
+            for (ServerPlayer player : level.players()) {
+                if (!player.blockPosition().closerThan(drawer.getBlockPos(), RANGE)) continue;
+                if (!synced.computeIfAbsent(player, serverPlayer -> new HashSet<>()).add(frequency)) continue;
+                sync(player, frequency, EnderSavedData.getInstance(level).getFrequency(frequency));
+            }
+        }
+        CHANGED_FREQUENCIES.clear();
+    }
+
+    private static void sync(ServerPlayer player, String frequency, EnderInventoryHandler handler) {
+        Map<String, SentState> sentStates = SENT_STATES.computeIfAbsent(player.getUUID(), uuid -> new HashMap<>());
+        SentState sent = sentStates.get(frequency);
+        BigInventoryHandler.BigStack bigStack = handler.getStoredStacks().get(0);
+        if (sent != null && sent.isSameIdentity(bigStack.getStack(), handler.isLocked(), handler.isVoid())) {
+            if (sent.amount == bigStack.getLongAmount()) return;
+            sent.amount = bigStack.getLongAmount();
+            FunctionalStorage.NETWORK.sendTo(EnderDrawerSyncMessage.amount(frequency, sent.amount), player);
+        } else {
+            sentStates.put(frequency, new SentState(bigStack.getStack().copy(), bigStack.getLongAmount(), handler.isLocked(), handler.isVoid()));
+            FunctionalStorage.NETWORK.sendTo(EnderDrawerSyncMessage.full(frequency, handler), player);
+        }
+    }
+
+    public static void onPlayerLoggedOut(UUID player) {
+        SENT_STATES.remove(player);
+    }
+
+    public static void clear() {
+        DRAWERS.clear();
+        CHANGED_FREQUENCIES.clear();
+        SENT_STATES.clear();
+    }
+
+    private static class SentState {
+
+        private final ItemStack stack;
+        private long amount;
+        private final boolean locked;
+        private final boolean voidItems;
+
+        private SentState(ItemStack stack, long amount, boolean locked, boolean voidItems) {
+            this.stack = stack;
+            this.amount = amount;
+            this.locked = locked;
+            this.voidItems = voidItems;
+        }
+
+        private boolean isSameIdentity(ItemStack stack, boolean locked, boolean voidItems) {
+            return this.locked == locked && this.voidItems == voidItems && ItemStack.isSameItemSameTags(this.stack, stack);
+        }
+    }
+}
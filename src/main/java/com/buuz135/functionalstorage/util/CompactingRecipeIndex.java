@@ -0,0 +1,107 @@
+package com.buuz135.functionalstorage.util;
+
+import com.buuz135.functionalstorage.FunctionalStorage;
+import com.buuz135.functionalstorage.recipe.CustomCompactingRecipe;
+import com.hrznstudio.titanium.util.RecipeUtil;
+import net.minecraft.Util;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.crafting.CraftingRecipe;
+import net.minecraft.world.item.crafting.RecipeManager;
+import net.minecraft.world.item.crafting.RecipeType;
+import net.minecraft.world.level.Level;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Index of the crafting recipes that can turn 4 or 9 of the same item into another one, grouped by their output, so
+ * finding the lower tier of an item doesn't need to go through every crafting recipe. It is built in the background
+ * for each {@link RecipeManager}, until it is ready {@link #get(Level)} returns null and callers scan the recipes.
+ */
+public class CompactingRecipeIndex {
+
+    private static volatile Snapshot snapshot;
+    private static RecipeManager building;
+
+    /**
+     * @return the index for the recipes of the level, or null if it is still being built
+     */
+    @Nullable
+    public static Snapshot get(Level level) {
+        Snapshot current = snapshot;
+        if (current != null && current.manager == level.getRecipeManager()) return current;
+        build(level);
+        return null;
+    }
+
+    /**
+     * Starts building the index for the recipes of the level if it isn't built or being built already.
+     */
+    public static synchronized void build(Level level) {
+        RecipeManager manager = level.getRecipeManager();
+        if (building == manager || (snapshot != null && snapshot.manager == manager)) return;
+        building = manager;
+        RegistryAccess access = level.registryAccess();
+        List<CustomCompactingRecipe> compactingRecipes = new ArrayList<>((List<CustomCompactingRecipe>) RecipeUtil.getRecipes(level, FunctionalStorage.CUSTOM_COMPACTING_RECIPE_TYPE.get()));
+        List<CraftingRecipe> craftingRecipes = new ArrayList<>(manager.getAllRecipesFor(RecipeType.CRAFTING));
+        CompletableFuture.supplyAsync(() -> new Snapshot(manager, compactingRecipes, indexByOutput(craftingRecipes, access)), Util.backgroundExecutor())
+                .whenComplete((result, throwable) -> {
+                    synchronized (CompactingRecipeIndex.class) {
+                        if (building != manager) return;
+                        building = null;
+                        if (result != null) {
+                            snapshot = result;
+                        } else {
+                            FunctionalStorage.LOGGER.error("Failed to build the compacting recipe index", throwable);
+                        }
+                    }
+                });
+    }
+
+    public static synchronized void clear() {
+        snapshot = null;
+        building = null;
+    }
+
+    private static Map<Item, List<CraftingRecipe>> indexByOutput(List<CraftingRecipe> craftingRecipes, RegistryAccess access) {
+        Map<Item, List<CraftingRecipe>> byOutput = new HashMap<>();
+        for (CraftingRecipe craftingRecipe : craftingRecipes) {
+            if (!CompactingUtil.isUniform(craftingRecipe.getIngredients())) continue;
+            ItemStack output = craftingRecipe.getResultItem(access);
+            if (output.isEmpty()) continue;
+            byOutput.computeIfAbsent(output.getItem(), item -> new ArrayList<>()).add(craftingRecipe);
+        }
+        return byOutput;
+    }
+
+    public static class Snapshot {
+
+        private final RecipeManager manager;
+        private final List<CustomCompactingRecipe> compactingRecipes;
+        private final Map<Item, List<CraftingRecipe>> byOutput;
+
+        private Snapshot(RecipeManager manager, List<CustomCompactingRecipe> compactingRecipes, Map<Item, List<CraftingRecipe>> byOutput) {
+            this.manager = manager;
+            this.compactingRecipes = Collections.unmodifiableList(compactingRecipes);
+            this.byOutput = byOutput;
+        }
+
+        public List<CustomCompactingRecipe> getCompactingRecipes() {
+            return compactingRecipes;
+        }
+
+        /**
+         * @return the uniform 2x2 and 3x3 crafting recipes that craft the item
+         */
+        public List<CraftingRecipe> getRecipesFor(Item output) {
+            return byOutput.getOrDefault(output, Collections.emptyList());
+        }
+    }
+}
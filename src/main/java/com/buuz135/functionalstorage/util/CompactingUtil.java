@@ -9,6 +9,7 @@ import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.inventory.AbstractContainerMenu;
 import net.minecraft.world.inventory.CraftingContainer;
 import net.minecraft.world.inventory.TransientCraftingContainer;
+import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.crafting.CraftingRecipe;
 import net.minecraft.world.item.crafting.Ingredient;
@@ -18,6 +19,8 @@ import net.minecraftforge.items.ItemHandlerHelper;
 import net.minecraftforge.registries.ForgeRegistries;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 
 /**
@@ -29,19 +32,50 @@ import java.util.*;
  */
 public class CompactingUtil {
 
+    /**
+     * Resolved compacting chains shared by every drawer, cleared when the recipes are reloaded.
+     */
+    private static final Map<ChainKey, List<Result>> CHAIN_CACHE = new ConcurrentHashMap<>();
+
     private final Level level;
     private List<Result> results;
     private final int resultAmount;
-    private final List<CustomCompactingRecipe> recipes;
+    private List<CustomCompactingRecipe> recipes;
+    private Function<Item, List<CraftingRecipe>> craftingRecipes;
 
     public CompactingUtil(Level level, int resultAmount) {
         this.level = level;
         this.resultAmount = resultAmount;
         this.results = new ArrayList<>();
-        this.recipes = (List<CustomCompactingRecipe>) RecipeUtil.getRecipes(level, FunctionalStorage.CUSTOM_COMPACTING_RECIPE_TYPE.get());
+    }
+
+    public static void clearCache() {
+        CHAIN_CACHE.clear();
     }
 
     public void setup(ItemStack stack){
+        ChainKey key = new ChainKey(ItemKey.copyOf(stack), stack.getCount(), this.resultAmount);
+        List<Result> cached = CHAIN_CACHE.get(key);
+        if (cached == null) {
+            resolve(stack);
+            CHAIN_CACHE.put(key, copyResults(this.results));
+        } else {
+            this.results = copyResults(cached);
+        }
+    }
+
+    private static List<Result> copyResults(List<Result> results) {
+        List<Result> copy = new ArrayList<>(results.size());
+        for (Result result : results) {
+            copy.add(new Result(result.getResult().copy(), result.getNeeded()));
+        }
+        return copy;
+    }
+
+    private void resolve(ItemStack stack){
+        CompactingRecipeIndex.Snapshot index = CompactingRecipeIndex.get(this.level);
+        this.craftingRecipes = index != null ? index::getRecipesFor : item -> level.getRecipeManager().getAllRecipesFor(RecipeType.CRAFTING);
+        this.recipes = index != null ? index.getCompactingRecipes() : (List<CustomCompactingRecipe>) RecipeUtil.getRecipes(level, FunctionalStorage.CUSTOM_COMPACTING_RECIPE_TYPE.get());
         results.add(new Result(stack, 1));
         Result result = findUpperTier(stack);
         if (!result.getResult().isEmpty()){
@@ -127,7 +161,7 @@ public class CompactingUtil {
         }
         List<ItemStack> candidates = new ArrayList<>();
         Map<ItemStack, Integer> candidatesRate = new HashMap<>();
-        for (CraftingRecipe craftingRecipe : level.getRecipeManager().getAllRecipesFor(RecipeType.CRAFTING)) {
+        for (CraftingRecipe craftingRecipe : this.craftingRecipes.apply(stack.getItem())) {
             ItemStack output = craftingRecipe.getResultItem(this.level.registryAccess());
             if (!ItemStack.isSameItem(stack, output)) continue;
             ItemStack match = tryMatch(stack, craftingRecipe.getIngredients());
@@ -187,13 +221,28 @@ public class CompactingUtil {
 
 
     private ItemStack tryMatch(ItemStack stack, NonNullList<Ingredient> ingredients) {
-        if (ingredients.size() != 9 && ingredients.size() != 4)
+        if (!isUniform(ingredients))
             return ItemStack.EMPTY;
 
+        ItemStack[] refMatchingStacks = ingredients.get(0).getItems();
+        ItemStack match = findSimilar(stack, Arrays.asList(refMatchingStacks));
+        if (match.isEmpty())
+            match = refMatchingStacks[0];
+
+        return match;
+    }
+
+    /**
+     * If the ingredients are a 2x2 or 3x3 grid that can be filled with the same item.
+     */
+    static boolean isUniform(List<Ingredient> ingredients) {
+        if (ingredients.size() != 9 && ingredients.size() != 4)
+            return false;
+
         Ingredient refIngredient = ingredients.get(0);
         ItemStack[] refMatchingStacks = refIngredient.getItems();
         if (refMatchingStacks.length == 0)
-            return ItemStack.EMPTY;
+            return false;
 
         for (int i = 1, n = ingredients.size(); i < n; i++) {
             Ingredient ingredient = ingredients.get(i);
@@ -207,14 +256,9 @@ public class CompactingUtil {
             }
 
             if (match.isEmpty())
-                return ItemStack.EMPTY;
+                return false;
         }
-
-        ItemStack match = findSimilar(stack, Arrays.asList(refMatchingStacks));
-        if (match.isEmpty())
-            match = refMatchingStacks[0];
-
-        return match;
+        return true;
     }
 
     private CraftingContainer createContainerAndFill(int size, ItemStack stack){
@@ -235,6 +279,9 @@ public class CompactingUtil {
         return inventoryCrafting;
     }
 
+    private record ChainKey(ItemKey item, int count, int resultAmount) {
+    }
+
     public static class Result{
 
         private ItemStack result;
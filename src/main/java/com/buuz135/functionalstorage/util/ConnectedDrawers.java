@@ -1,6 +1,7 @@
 package com.buuz135.functionalstorage.util;
 
 import com.buuz135.functionalstorage.block.config.FunctionalStorageConfig;
+import com.buuz135.functionalstorage.block.tile.ControllableDrawerTile;
 import com.buuz135.functionalstorage.block.tile.FluidDrawerTile;
 import com.buuz135.functionalstorage.block.tile.ItemControllableDrawerTile;
 import com.buuz135.functionalstorage.block.tile.StorageControllerExtensionTile;
@@ -11,36 +12,48 @@ import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.phys.AABB;
 import net.minecraft.world.phys.Vec3;
-import net.minecraft.world.phys.shapes.BooleanOp;
-import net.minecraft.world.phys.shapes.Shapes;
+import net.minecraft.world.phys.shapes.ArrayVoxelShape;
+import net.minecraft.world.phys.shapes.BitSetDiscreteVoxelShape;
 import net.minecraft.world.phys.shapes.VoxelShape;
 import net.minecraftforge.common.util.INBTSerializable;
 import net.minecraftforge.fluids.capability.IFluidHandler;
 import net.minecraftforge.items.IItemHandler;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 public class ConnectedDrawers implements INBTSerializable<CompoundTag> {
 
+    public static String POSITIONS = "Positions";
+
     private StorageControllerTile controllerTile;
 
     private List<Long> connectedDrawers;
     private List<IItemHandler> itemHandlers;
+    private List<Long> itemHandlerPositions;
     private List<IFluidHandler> fluidHandlers;
+    private List<Long> fluidHandlerPositions;
+    private Set<Long> extensionPositions;
     private Level level;
-    private int extensions;
     private VoxelShape cachedVoxelShape;
+    private final Comparator<Long> distanceComparator;
 
     public ConnectedDrawers(Level level, StorageControllerTile controllerTile) {
         this.controllerTile = controllerTile;
 
         this.connectedDrawers = new ArrayList<>();
         this.itemHandlers = new ArrayList<>();
+        this.itemHandlerPositions = new ArrayList<>();
         this.fluidHandlers = new ArrayList<>();
+        this.fluidHandlerPositions = new ArrayList<>();
+        this.extensionPositions = new HashSet<>();
         this.level = level;
-        this.extensions = 0;
+        this.distanceComparator = Comparator.<Long>comparingLong(this::distanceToController).thenComparingLong(value -> value);
 
         this.cachedVoxelShape = null;
     }
@@ -49,31 +62,42 @@ public class ConnectedDrawers implements INBTSerializable<CompoundTag> {
         this.level = level;
     }
 
+    /**
+     * Rebuilds every handler list from scratch, only needed when loading, use {@link #addDrawer(long)},
+     * {@link #removeDrawer(long)} and {@link #updateDrawer(long)} when a single drawer changes.
+     */
     public void rebuild() {
         this.itemHandlers = new ArrayList<>();
+        this.itemHandlerPositions = new ArrayList<>();
         this.fluidHandlers = new ArrayList<>();
-        this.extensions = 0;
+        this.fluidHandlerPositions = new ArrayList<>();
+        this.extensionPositions = new HashSet<>();
+        this.connectedDrawers.sort(this.distanceComparator);
         if (level != null && !level.isClientSide()) {
-            var extraRange = controllerTile.getStorageMultiplier();
-            if (extraRange == 1){
-                extraRange = 0;
-            }
-            var area = new AABB(controllerTile.getBlockPos()).inflate(FunctionalStorageConfig.DRAWER_CONTROLLER_LINKING_RANGE + extraRange);
+            var area = getLinkingArea();
             this.connectedDrawers.removeIf(aLong -> !area.contains(Vec3.atCenterOf(BlockPos.of(aLong))));
-            this.connectedDrawers.sort(Comparator.comparingDouble(value -> BlockPos.of(value).distSqr(controllerTile.getBlockPos())));
-            for (Long connectedDrawer : this.connectedDrawers) {
+            for (Iterator<Long> iterator = this.connectedDrawers.iterator(); iterator.hasNext(); ) {
+                Long connectedDrawer = iterator.next();
                 BlockPos pos = BlockPos.of(connectedDrawer);
+                // Drawers in unloaded chunks link themselves when they load, no need to force load the chunk
+                if (!level.isLoaded(pos)) continue;
                 BlockEntity entity = level.getBlockEntity(pos);
+                if (!(entity instanceof ControllableDrawerTile<?>)) {
+                    iterator.remove();
+                    continue;
+                }
                 if (entity instanceof StorageControllerTile) continue;
                 if (entity instanceof StorageControllerExtensionTile) {
-                    ++extensions;
+                    this.extensionPositions.add(connectedDrawer);
                     continue;
                 }
                 if (entity instanceof ItemControllableDrawerTile<?> itemControllableDrawerTile) {
                     this.itemHandlers.add(itemControllableDrawerTile.getStorage());
+                    this.itemHandlerPositions.add(connectedDrawer);
                 }
                 if (entity instanceof FluidDrawerTile fluidDrawerTile) {
                     this.fluidHandlers.add(fluidDrawerTile.getFluidHandler());
+                    this.fluidHandlerPositions.add(connectedDrawer);
                 }
             }
         }
@@ -82,32 +106,200 @@ public class ConnectedDrawers implements INBTSerializable<CompoundTag> {
         this.controllerTile.fluidHandler.invalidateSlots();
     }
 
+    /**
+     * Links a drawer to the controller, inserting its handlers in distance order without touching the rest of the network.
+     *
+     * @return true if the drawer wasn't linked already
+     */
+    public boolean addDrawer(long position) {
+        int index = Collections.binarySearch(this.connectedDrawers, position, this.distanceComparator);
+        if (index >= 0) return false;
+        this.connectedDrawers.add(-index - 1, position);
+        linkHandlers(position);
+        return true;
+    }
+
+    /**
+     * Unlinks a drawer from the controller, removing only its handlers from the network.
+     *
+     * @return true if the drawer was linked
+     */
+    public boolean removeDrawer(long position) {
+        int index = Collections.binarySearch(this.connectedDrawers, position, this.distanceComparator);
+        if (index < 0) return false;
+        this.connectedDrawers.remove(index);
+        unlinkHandlers(position);
+        return true;
+    }
+
+    /**
+     * Refreshes the handlers of a single linked drawer, like when its upgrades change the amount of slots it exposes.
+     */
+    public void updateDrawer(long position) {
+        if (Collections.binarySearch(this.connectedDrawers, position, this.distanceComparator) < 0) return;
+        unlinkHandlers(position);
+        linkHandlers(position);
+    }
+
+    /**
+     * Links the handlers of an already linked drawer whose chunk just loaded.
+     */
+    public void loadDrawer(long position) {
+        if (Collections.binarySearch(this.connectedDrawers, position, this.distanceComparator) < 0) return;
+        linkHandlers(position);
+    }
+
+    /**
+     * Drops the handlers of a linked drawer whose chunk is unloading, keeping it linked.
+     */
+    public void unloadDrawer(long position) {
+        if (Collections.binarySearch(this.connectedDrawers, position, this.distanceComparator) < 0) return;
+        unlinkHandlers(position);
+    }
+
+    /**
+     * Unlinks the drawers that are no longer inside the linking range of the controller.
+     */
+    public void updateRange() {
+        if (level == null || level.isClientSide()) return;
+        var area = getLinkingArea();
+        for (Long connectedDrawer : new ArrayList<>(this.connectedDrawers)) {
+            if (!area.contains(Vec3.atCenterOf(BlockPos.of(connectedDrawer)))) {
+                removeDrawer(connectedDrawer);
+            }
+        }
+    }
+
+    private void linkHandlers(long position) {
+        if (level == null || level.isClientSide()) return;
+        BlockEntity entity = level.getBlockEntity(BlockPos.of(position));
+        if (entity instanceof StorageControllerTile) return;
+        if (entity instanceof StorageControllerExtensionTile) {
+            this.extensionPositions.add(position);
+            return;
+        }
+        if (entity instanceof ItemControllableDrawerTile<?> itemControllableDrawerTile) {
+            int index = Collections.binarySearch(this.itemHandlerPositions, position, this.distanceComparator);
+            if (index >= 0) return;
+            index = -index - 1;
+            this.itemHandlers.add(index, itemControllableDrawerTile.getStorage());
+            this.itemHandlerPositions.add(index, position);
+            this.controllerTile.inventoryHandler.addHandler(index, itemControllableDrawerTile.getStorage());
+        }
+        if (entity instanceof FluidDrawerTile fluidDrawerTile) {
+            int index = Collections.binarySearch(this.fluidHandlerPositions, position, this.distanceComparator);
+            if (index >= 0) return;
+            index = -index - 1;
+            this.fluidHandlers.add(index, fluidDrawerTile.getFluidHandler());
+            this.fluidHandlerPositions.add(index, position);
+            this.controllerTile.fluidHandler.addHandler(index, fluidDrawerTile.getFluidHandler());
+        }
+    }
+
+    private void unlinkHandlers(long position) {
+        this.extensionPositions.remove(position);
+        int index = Collections.binarySearch(this.itemHandlerPositions, position, this.distanceComparator);
+        if (index >= 0) {
+            this.itemHandlers.remove(index);
+            this.itemHandlerPositions.remove(index);
+            this.controllerTile.inventoryHandler.removeHandler(index);
+        }
+        index = Collections.binarySearch(this.fluidHandlerPositions, position, this.distanceComparator);
+        if (index >= 0) {
+            this.fluidHandlers.remove(index);
+            this.fluidHandlerPositions.remove(index);
+            this.controllerTile.fluidHandler.removeHandler(index);
+        }
+    }
+
+    /**
+     * The area around the controller in which drawers can be linked to it.
+     */
+    public AABB getLinkingArea() {
+        var extraRange = controllerTile.getStorageMultiplier();
+        if (extraRange == 1){
+            extraRange = 0;
+        }
+        return new AABB(controllerTile.getBlockPos()).inflate(FunctionalStorageConfig.DRAWER_CONTROLLER_LINKING_RANGE + extraRange);
+    }
+
+    private long distanceToController(long position) {
+        BlockPos controllerPos = controllerTile.getBlockPos();
+        long x = BlockPos.getX(position) - controllerPos.getX();
+        long y = BlockPos.getY(position) - controllerPos.getY();
+        long z = BlockPos.getZ(position) - controllerPos.getZ();
+        return x * x + y * y + z * z;
+    }
+
+    /**
+     * Builds the outline of the controller and its drawers as a single shape, filling one voxel per block in a bitset
+     * that covers all of them instead of joining a shape per drawer.
+     */
     public void rebuildShapes() {
-        this.cachedVoxelShape = Shapes.create(new AABB(controllerTile.getBlockPos()));
-        for (Long connectedDrawer : this.connectedDrawers) {
-            this.cachedVoxelShape = Shapes.join(this.cachedVoxelShape, Shapes.create(new AABB(BlockPos.of(connectedDrawer))), BooleanOp.OR);
+        BlockPos controllerPos = controllerTile.getBlockPos();
+        int minX = controllerPos.getX();
+        int minY = controllerPos.getY();
+        int minZ = controllerPos.getZ();
+        int maxX = minX;
+        int maxY = minY;
+        int maxZ = minZ;
+        for (long connectedDrawer : this.connectedDrawers) {
+            minX = Math.min(minX, BlockPos.getX(connectedDrawer));
+            minY = Math.min(minY, BlockPos.getY(connectedDrawer));
+            minZ = Math.min(minZ, BlockPos.getZ(connectedDrawer));
+            maxX = Math.max(maxX, BlockPos.getX(connectedDrawer));
+            maxY = Math.max(maxY, BlockPos.getY(connectedDrawer));
+            maxZ = Math.max(maxZ, BlockPos.getZ(connectedDrawer));
+        }
+        BitSetDiscreteVoxelShape voxels = new BitSetDiscreteVoxelShape(maxX - minX + 1, maxY - minY + 1, maxZ - minZ + 1);
+        voxels.fill(controllerPos.getX() - minX, controllerPos.getY() - minY, controllerPos.getZ() - minZ);
+        for (long connectedDrawer : this.connectedDrawers) {
+            voxels.fill(BlockPos.getX(connectedDrawer) - minX, BlockPos.getY(connectedDrawer) - minY, BlockPos.getZ(connectedDrawer) - minZ);
+        }
+        this.cachedVoxelShape = new ArrayVoxelShape(voxels, getVoxelCoordinates(minX, maxX), getVoxelCoordinates(minY, maxY), getVoxelCoordinates(minZ, maxZ));
+    }
+
+    private static double[] getVoxelCoordinates(int min, int max) {
+        double[] coordinates = new double[max - min + 2];
+        for (int i = 0; i < coordinates.length; i++) {
+            coordinates[i] = min + i;
         }
+        return coordinates;
+    }
+
+    /**
+     * Drops the outline so it's built again the next time it's needed.
+     */
+    public void invalidateShapes() {
+        this.cachedVoxelShape = null;
     }
 
     @Override
     public CompoundTag serializeNBT() {
         CompoundTag compoundTag = new CompoundTag();
-        for (int i = 0; i < this.connectedDrawers.size(); i++) {
-            compoundTag.putLong(i + "", this.connectedDrawers.get(i));
+        NBTLayout.putVersion(compoundTag);
+        long[] positions = new long[this.connectedDrawers.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = this.connectedDrawers.get(i);
         }
+        compoundTag.putLongArray(POSITIONS, positions);
         return compoundTag;
     }
 
     @Override
     public void deserializeNBT(CompoundTag nbt) {
         this.connectedDrawers = new ArrayList<>();
-        for (String allKey : nbt.getAllKeys()) {
-            connectedDrawers.add(nbt.getLong(allKey));
+        if (NBTLayout.isLegacy(nbt)) {
+            for (String allKey : nbt.getAllKeys()) {
+                connectedDrawers.add(nbt.getLong(allKey));
+            }
+        } else {
+            for (long position : nbt.getLongArray(POSITIONS)) {
+                connectedDrawers.add(position);
+            }
         }
         rebuild();
-        if (controllerTile.getLevel() != null && controllerTile.isClient()) {
-            rebuildShapes();
-        }
+        invalidateShapes();
     }
 
     public List<Long> getConnectedDrawers() {
@@ -123,10 +315,24 @@ public class ConnectedDrawers implements INBTSerializable<CompoundTag> {
     }
 
     public int getExtensions() {
-        return extensions;
+        return extensionPositions.size();
     }
 
+    /**
+     * @return the outline if it was already built, null otherwise
+     */
     public VoxelShape getCachedVoxelShape() {
         return cachedVoxelShape;
     }
+
+    /**
+     * @return the outline of the controller and its drawers, built when first needed, which is only when a player holds
+     * a linking tool bound to the controller
+     */
+    public VoxelShape getVoxelShape() {
+        if (this.cachedVoxelShape == null) {
+            rebuildShapes();
+        }
+        return this.cachedVoxelShape;
+    }
 }
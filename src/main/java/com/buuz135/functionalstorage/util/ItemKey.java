@@ -0,0 +1,62 @@
+package com.buuz135.functionalstorage.util;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+
+import java.util.Objects;
+
+/**
+ * Hashable item + NBT identity of an {@link ItemStack}, ignoring its count. Two keys are equal when
+ * {@link ItemStack#isSameItemSameTags(ItemStack, ItemStack)} would be true for their stacks.
+ */
+public final class ItemKey {
+
+    private final Item item;
+    private final CompoundTag tag;
+    private final int hash;
+
+    private ItemKey(Item item, CompoundTag tag) {
+        this.item = item;
+        this.tag = tag;
+        this.hash = 31 * item.hashCode() + (tag == null ? 0 : tag.hashCode());
+    }
+
+    /**
+     * Creates a key that shares the stack's tag, only meant for short-lived lookups.
+     */
+    public static ItemKey of(ItemStack stack) {
+        return new ItemKey(stack.getItem(), stack.getTag());
+    }
+
+    /**
+     * Creates a key with its own copy of the stack's tag, safe to keep around as a map key.
+     */
+    public static ItemKey copyOf(ItemStack stack) {
+        return new ItemKey(stack.getItem(), stack.getTag() == null ? null : stack.getTag().copy());
+    }
+
+    public Item getItem() {
+        return item;
+    }
+
+    public CompoundTag getTag() {
+        return tag;
+    }
+
+    public boolean matches(ItemStack stack) {
+        return stack.getItem() == this.item && Objects.equals(stack.getTag(), this.tag);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ItemKey other)) return false;
+        return hash == other.hash && item == other.item && Objects.equals(tag, other.tag);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -0,0 +1,35 @@
+package com.buuz135.functionalstorage.util;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.world.item.ItemStack;
+
+/**
+ * Helpers for the compact save format of the drawer handlers, which stores its entries in lists and arrays instead of a
+ * compound with a stringified index per entry. Tags written before it have no {@link #VERSION} key and are read with
+ * the old layout.
+ */
+public class NBTLayout {
+
+    public static final String VERSION = "Version";
+    public static final int CURRENT_VERSION = 1;
+
+    public static boolean isLegacy(CompoundTag tag) {
+        return !tag.contains(VERSION, Tag.TAG_ANY_NUMERIC);
+    }
+
+    public static void putVersion(CompoundTag tag) {
+        tag.putByte(VERSION, (byte) CURRENT_VERSION);
+    }
+
+    /**
+     * Empty stacks are written as an empty tag so they don't take the space of a serialized air stack.
+     */
+    public static CompoundTag writeStack(ItemStack stack) {
+        return stack.isEmpty() ? new CompoundTag() : stack.serializeNBT();
+    }
+
+    public static ItemStack readStack(CompoundTag tag) {
+        return tag.isEmpty() ? ItemStack.EMPTY : ItemStack.of(tag);
+    }
+}
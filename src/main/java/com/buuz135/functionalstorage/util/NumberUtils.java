@@ -6,8 +6,12 @@ public class NumberUtils {
 
     private static DecimalFormat formatterWithUnits = new DecimalFormat("####0.#");
 
-    public static String getFormatedBigNumber(int number) {
-        if (number >= 1000000000) { //BILLION
+    public static String getFormatedBigNumber(long number) {
+        if (number >= 1000000000000L) { //TRILLION
+            double numb = number / 1000000000000D;
+            if (number > 100000000000000L) numb = Math.round(numb);
+            return formatterWithUnits.format(numb) + "T";
+        } else if (number >= 1000000000) { //BILLION
             float numb = number / 1000000000F;
             return formatterWithUnits.format(numb) + "B";
         } else if (number >= 1000000) { //MILLION
@@ -0,0 +1,54 @@
+package com.buuz135.functionalstorage.util;
+
+import com.buuz135.functionalstorage.FunctionalStorage;
+import com.buuz135.functionalstorage.block.config.FunctionalStorageConfig;
+import com.buuz135.functionalstorage.block.tile.ControllableDrawerTile;
+import net.minecraft.world.level.Level;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Runs the drawer upgrades of every dimension at the end of its tick, spending at most
+ * {@link FunctionalStorageConfig#UPGRADE_TICK_BUDGET} on them. Drawers that don't fit in the budget stay queued in
+ * order for the next tick instead of being dropped.
+ */
+public class UpgradeScheduler {
+
+    private static final long BACKLOG_REPORT_INTERVAL = 20 * 60;
+    private static final Map<Level, Set<ControllableDrawerTile<?>>> QUEUES = new WeakHashMap<>();
+    private static final Map<Level, Long> LAST_REPORT = new WeakHashMap<>();
+
+    public static void schedule(ControllableDrawerTile<?> tile) {
+        if (tile.getLevel() == null || tile.getLevel().isClientSide()) return;
+        QUEUES.computeIfAbsent(tile.getLevel(), level -> new LinkedHashSet<>()).add(tile);
+    }
+
+    public static void tick(Level level) {
+        Set<ControllableDrawerTile<?>> queue = QUEUES.get(level);
+        if (queue == null || queue.isEmpty()) return;
+        long deadline = System.nanoTime() + FunctionalStorageConfig.UPGRADE_TICK_BUDGET * 1000L;
+        Iterator<ControllableDrawerTile<?>> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            ControllableDrawerTile<?> tile = iterator.next();
+            iterator.remove();
+            if (!tile.isRemoved() && tile.getLevel() == level) {
+                tile.runUpgrades();
+            }
+            if (System.nanoTime() >= deadline) break;
+        }
+        Long lastReport = LAST_REPORT.get(level);
+        if (!queue.isEmpty() && (lastReport == null || level.getGameTime() - lastReport >= BACKLOG_REPORT_INTERVAL)) {
+            LAST_REPORT.put(level, level.getGameTime());
+            FunctionalStorage.LOGGER.warn("Drawer upgrades in {} are over the tick budget, {} drawers are waiting for the next tick", level.dimension().location(), queue.size());
+        }
+    }
+
+    public static void clear(Level level) {
+        QUEUES.remove(level);
+        LAST_REPORT.remove(level);
+    }
+}